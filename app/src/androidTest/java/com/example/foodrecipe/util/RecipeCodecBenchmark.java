@@ -0,0 +1,135 @@
+package com.example.foodrecipe.util;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.foodrecipe.model.Recipe;
+import com.google.firebase.firestore.util.CustomClassMapper;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares RecipeCodec with the reflective mapper behind toObject(Recipe.class).
+ * Only the mapped values are asserted; timings are written to logcat under the
+ * RecipeCodecBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RecipeCodecBenchmark {
+    private static final String TAG = "RecipeCodecBenchmark";
+
+    private static final int DOCUMENT_COUNT = 5000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Test
+    public void codecMatchesReflectiveMapper() {
+        Map<String, Object> data = createDocument(1);
+
+        Recipe expected = CustomClassMapper.convertToCustomClass(data, Recipe.class, null);
+        Recipe actual = RecipeCodec.fromMap(null, data);
+
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getImageUrl(), actual.getImageUrl());
+        assertEquals(expected.getCookingTimeMinutes(), actual.getCookingTimeMinutes());
+        assertEquals(expected.getServingSize(), actual.getServingSize());
+        assertEquals(expected.getCategory(), actual.getCategory());
+        assertEquals(expected.getNutritionValues(), actual.getNutritionValues());
+        assertEquals(expected.getInstructions(), actual.getInstructions());
+        assertEquals(expected.getTags(), actual.getTags());
+        assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+        assertEquals(expected.getLikesCount(), actual.getLikesCount());
+        assertEquals(expected.getIngredients().size(), actual.getIngredients().size());
+        for (int i = 0; i < expected.getIngredients().size(); i++) {
+            assertEquals(expected.getIngredients().get(i).toString(), actual.getIngredients().get(i).toString());
+        }
+    }
+
+    @Test
+    public void benchmarkCodecAgainstReflectiveMapper() {
+        List<Map<String, Object>> documents = new ArrayList<>(DOCUMENT_COUNT);
+        for (int i = 0; i < DOCUMENT_COUNT; i++) {
+            documents.add(createDocument(i));
+        }
+
+        long reflectiveMs = measure(documents, true);
+        long codecMs = measure(documents, false);
+
+        // Wall-clock times vary too much on shared devices to pass or fail on, so only log them
+        Log.i(TAG, "Mapped " + DOCUMENT_COUNT + " recipes: toObject " + reflectiveMs
+                + " ms, RecipeCodec " + codecMs + " ms");
+    }
+
+    // Median time of one round over all documents
+    private long measure(List<Map<String, Object>> documents, boolean reflective) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            mapAll(documents, reflective);
+        }
+
+        long[] rounds = new long[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            mapAll(documents, reflective);
+            rounds[i] = (SystemClock.elapsedRealtimeNanos() - start) / 1_000_000;
+        }
+        Arrays.sort(rounds);
+        return rounds[MEASURED_ROUNDS / 2];
+    }
+
+    private int mapAll(List<Map<String, Object>> documents, boolean reflective) {
+        int checksum = 0;
+        for (Map<String, Object> data : documents) {
+            Recipe recipe = reflective
+                    ? CustomClassMapper.convertToCustomClass(data, Recipe.class, null)
+                    : RecipeCodec.fromMap(null, data);
+            checksum += recipe.getIngredients().size();
+        }
+        return checksum;
+    }
+
+    // Same shape Firestore returns from getData(): numbers are Long, nested objects are Maps
+    private Map<String, Object> createDocument(int index) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("name", "Recipe " + index);
+        data.put("description", "Description for recipe " + index);
+        data.put("imageUrl", "https://example.com/recipes/" + index + ".jpg");
+        data.put("cookingTime", 30L + index % 60);
+        data.put("servingSize", 2L + index % 6);
+        data.put("category", "Category " + index % 8);
+        data.put("createdBy", "user" + index % 50);
+        data.put("createdAt", 1_700_000_000_000L + index);
+        data.put("updatedAt", 1_700_000_000_000L + index);
+        data.put("likesCount", (long) index % 100);
+
+        Map<String, Object> nutrition = new HashMap<>();
+        nutrition.put("calories", "250 kcal");
+        nutrition.put("protein", "15g");
+        data.put("nutritionValues", nutrition);
+
+        List<Object> ingredients = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Map<String, Object> ingredient = new HashMap<>();
+            ingredient.put("name", "Ingredient " + i);
+            ingredient.put("quantity", String.valueOf(i + 1));
+            ingredient.put("unit", "g");
+            ingredient.put("category", "Other");
+            ingredients.add(ingredient);
+        }
+        data.put("ingredients", ingredients);
+
+        data.put("instructions", Arrays.asList("Prepare", "Cook", "Serve"));
+        data.put("tags", Arrays.asList("vegetarian", "quick"));
+        return data;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.foodrecipe;
+
+import android.app.Application;
+
+import com.example.foodrecipe.repository.MutationQueue;
+import com.example.foodrecipe.repository.UploadQueue;
+import com.example.foodrecipe.util.FirebaseHelper;
+
+public class FoodRecipeApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        
+        // Before anything else touches Firestore, or the cache settings no longer apply.
+        // Firestore's disk cache has to hold the synced recipes collection plus the queries
+        // and documents read around it; the default size leaves space for that.
+        FirebaseHelper.initialize(FirebaseHelper.DEFAULT_CACHE_SIZE_BYTES);
+        // Continue image uploads interrupted when the process was last killed
+        UploadQueue.getInstance(this).resume();
+        // Send favorites, ingredients and notes changed while offline or before a crash
+        MutationQueue.getInstance(this).resume();
+    }
+}
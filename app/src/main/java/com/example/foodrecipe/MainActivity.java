@@ -6,7 +6,9 @@ import android.view.MenuItem;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.foodrecipe.adapter.RecipeAdapter;
 import com.example.foodrecipe.ui.favorites.FavoritesFragment;
 import com.example.foodrecipe.ui.home.HomeFragment;
 import com.example.foodrecipe.ui.ingredients.IngredientsFragment;
@@ -18,12 +20,17 @@ import com.google.firebase.auth.FirebaseAuth;
 
 public class MainActivity extends AppCompatActivity implements NavigationBarView.OnItemSelectedListener {
 
+    // Recipe rows kept across tab switches; the default of 5 per view type is too small for a screen of rows
+    private static final int MAX_POOLED_RECIPE_VIEWS = 20;
+
     private BottomNavigationView bottomNavigationView;
+    private final RecyclerView.RecycledViewPool recipeViewPool = new RecyclerView.RecycledViewPool();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        recipeViewPool.setMaxRecycledViews(RecipeAdapter.VIEW_TYPE_RECIPE, MAX_POOLED_RECIPE_VIEWS);
         
         // Check if user is logged in
         if (FirebaseAuth.getInstance().getCurrentUser() == null) {
@@ -46,6 +53,14 @@ public class MainActivity extends AppCompatActivity implements NavigationBarView
         handleIntent();
     }
     
+    /**
+     * View pool shared by the recipe lists on the Home, Search and Favorites tabs,
+     * so inflated recipe rows are reused when switching tabs
+     */
+    public RecyclerView.RecycledViewPool getRecipeViewPool() {
+        return recipeViewPool;
+    }
+    
     private void handleIntent() {
         // Check if we were launched with a specific recipe ID
         if (getIntent().hasExtra("recipeId")) {
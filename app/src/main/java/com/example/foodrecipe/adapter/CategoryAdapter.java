@@ -7,25 +7,49 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.example.foodrecipe.R;
 import com.example.foodrecipe.model.Category;
+import com.example.foodrecipe.util.AppExecutors;
+import com.example.foodrecipe.util.ImageLoader;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Adapter for displaying recipe categories in a RecyclerView
  */
 public class CategoryAdapter extends RecyclerView.Adapter<CategoryAdapter.CategoryViewHolder> {
     
-    private final List<Category> categories;
+    private static final DiffUtil.ItemCallback<Category> DIFF_CALLBACK = new DiffUtil.ItemCallback<Category>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Category oldItem, @NonNull Category newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull Category oldItem, @NonNull Category newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getImageUrl(), newItem.getImageUrl());
+        }
+    };
+    
+    private final AsyncListDiffer<Category> differ = new AsyncListDiffer<>(this,
+            new AsyncDifferConfig.Builder<>(DIFF_CALLBACK)
+                    .setBackgroundThreadExecutor(AppExecutors.getInstance().computation())
+                    .build());
+    private final StableIds stableIds = new StableIds();
     private final OnCategoryClickListener listener;
     
     public CategoryAdapter(List<Category> categories, OnCategoryClickListener listener) {
-        this.categories = categories;
         this.listener = listener;
+        setHasStableIds(true);
+        updateData(categories);
     }
     
     @NonNull
@@ -38,24 +62,26 @@ public class CategoryAdapter extends RecyclerView.Adapter<CategoryAdapter.Catego
     
     @Override
     public void onBindViewHolder(@NonNull CategoryViewHolder holder, int position) {
-        Category category = categories.get(position);
+        Category category = differ.getCurrentList().get(position);
         holder.bind(category, listener);
     }
     
     @Override
     public int getItemCount() {
-        return categories != null ? categories.size() : 0;
+        return differ.getCurrentList().size();
+    }
+    
+    @Override
+    public long getItemId(int position) {
+        return stableIds.get(differ.getCurrentList().get(position).getId());
     }
     
     /**
-     * Updates the adapter data
+     * Updates the adapter data. The list is copied and diffed in the background,
+     * so only the rows that changed are rebound.
      */
     public void updateData(List<Category> newCategories) {
-        categories.clear();
-        if (newCategories != null) {
-            categories.addAll(newCategories);
-        }
-        notifyDataSetChanged();
+        differ.submitList(newCategories != null ? new ArrayList<>(newCategories) : new ArrayList<>());
     }
     
     /**
@@ -81,17 +107,7 @@ public class CategoryAdapter extends RecyclerView.Adapter<CategoryAdapter.Catego
         public void bind(Category category, OnCategoryClickListener listener) {
             categoryNameTextView.setText(category.getName());
             
-            // Load image using Glide
-            if (category.getImageUrl() != null && !category.getImageUrl().isEmpty()) {
-                Glide.with(itemView.getContext())
-                        .load(category.getImageUrl())
-                        .placeholder(R.drawable.ic_category_placeholder)
-                        .error(R.drawable.ic_category_placeholder)
-                        .centerCrop()
-                        .into(categoryImageView);
-            } else {
-                categoryImageView.setImageResource(R.drawable.ic_category_placeholder);
-            }
+            ImageLoader.loadThumbnail(categoryImageView, category.getImageUrl(), R.drawable.ic_category_placeholder);
             
             // Set click listener
             itemView.setOnClickListener(v -> {
@@ -9,9 +9,9 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.example.foodrecipe.R;
 import com.example.foodrecipe.model.Recipe;
+import com.example.foodrecipe.util.ImageLoader;
 
 import java.util.List;
 
@@ -20,12 +20,15 @@ import java.util.List;
  */
 public class FeaturedRecipeAdapter extends RecyclerView.Adapter<FeaturedRecipeAdapter.FeaturedRecipeViewHolder> {
     
-    private final List<Recipe> featuredRecipes;
+    private final RecipeRowDiffer rows = new RecipeRowDiffer(this);
+    // One click listener for every row; the recipe is looked up by adapter position
+    private final View.OnClickListener rowClickListener = this::onRowClick;
     private final OnFeaturedRecipeClickListener listener;
     
     public FeaturedRecipeAdapter(List<Recipe> featuredRecipes, OnFeaturedRecipeClickListener listener) {
-        this.featuredRecipes = featuredRecipes;
         this.listener = listener;
+        setHasStableIds(true);
+        updateData(featuredRecipes);
     }
     
     @NonNull
@@ -38,24 +41,34 @@ public class FeaturedRecipeAdapter extends RecyclerView.Adapter<FeaturedRecipeAd
     
     @Override
     public void onBindViewHolder(@NonNull FeaturedRecipeViewHolder holder, int position) {
-        Recipe recipe = featuredRecipes.get(position);
-        holder.bind(recipe, listener);
+        holder.bind(rows.get(position));
+        holder.itemView.setOnClickListener(rowClickListener);
     }
     
     @Override
     public int getItemCount() {
-        return featuredRecipes != null ? featuredRecipes.size() : 0;
+        return rows.size();
+    }
+    
+    @Override
+    public long getItemId(int position) {
+        return rows.getItemId(position);
     }
     
     /**
-     * Updates the adapter data
+     * Updates the adapter data. Rows are formatted and diffed in the background,
+     * so only the rows that changed are rebound.
      */
     public void updateData(List<Recipe> newRecipes) {
-        featuredRecipes.clear();
-        if (newRecipes != null) {
-            featuredRecipes.addAll(newRecipes);
+        rows.submitRecipes(newRecipes);
+    }
+    
+    private void onRowClick(View view) {
+        RecyclerView.ViewHolder holder = (RecyclerView.ViewHolder) view.getTag();
+        int position = holder.getBindingAdapterPosition();
+        if (position != RecyclerView.NO_POSITION && listener != null) {
+            listener.onFeaturedRecipeClick(rows.get(position).getRecipe());
         }
-        notifyDataSetChanged();
     }
     
     /**
@@ -77,6 +90,7 @@ public class FeaturedRecipeAdapter extends RecyclerView.Adapter<FeaturedRecipeAd
         
         public FeaturedRecipeViewHolder(@NonNull View itemView) {
             super(itemView);
+            itemView.setTag(this);
             recipeImageView = itemView.findViewById(R.id.image_recipe);
             recipeNameTextView = itemView.findViewById(R.id.text_recipe_name);
             recipeDescriptionTextView = itemView.findViewById(R.id.text_recipe_description);
@@ -84,37 +98,15 @@ public class FeaturedRecipeAdapter extends RecyclerView.Adapter<FeaturedRecipeAd
             servingSizeTextView = itemView.findViewById(R.id.text_serving_size);
         }
         
-        public void bind(Recipe recipe, OnFeaturedRecipeClickListener listener) {
-            recipeNameTextView.setText(recipe.getName());
-            
-            // Truncate description if it's too long
-            String description = recipe.getDescription();
-            if (description != null && description.length() > 100) {
-                description = description.substring(0, 97) + "...";
-            }
-            recipeDescriptionTextView.setText(description);
-            
-            cookingTimeTextView.setText(String.format("%d min", recipe.getCookingTimeMinutes()));
-            servingSizeTextView.setText(String.format("%d servings", recipe.getServingSize()));
+        public void bind(RecipeRowModel row) {
+            recipeNameTextView.setText(row.getName());
+            recipeDescriptionTextView.setText(row.getShortDescription());
             
-            // Load image using Glide
-            if (recipe.getImageUrl() != null && !recipe.getImageUrl().isEmpty()) {
-                Glide.with(itemView.getContext())
-                        .load(recipe.getImageUrl())
-                        .placeholder(R.drawable.ic_recipe_placeholder)
-                        .error(R.drawable.ic_recipe_placeholder)
-                        .centerCrop()
-                        .into(recipeImageView);
-            } else {
-                recipeImageView.setImageResource(R.drawable.ic_recipe_placeholder);
-            }
+            cookingTimeTextView.setText(row.getCookingTimeText());
+            servingSizeTextView.setText(row.getServingSizeText());
             
-            // Set click listener
-            itemView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onFeaturedRecipeClick(recipe);
-                }
-            });
+            ImageLoader.loadThumbnail(recipeImageView, row.getImageVariants(), row.getImageUrl(),
+                    R.drawable.ic_recipe_placeholder);
         }
     }
 }
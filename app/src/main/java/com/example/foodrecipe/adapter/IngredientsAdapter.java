@@ -7,24 +7,50 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.foodrecipe.R;
 import com.example.foodrecipe.ui.ingredients.IngredientsFragment;
+import com.example.foodrecipe.util.AppExecutors;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Adapter for displaying user's ingredients in a RecyclerView
  */
 public class IngredientsAdapter extends RecyclerView.Adapter<IngredientsAdapter.IngredientViewHolder> {
     
-    private final List<IngredientsFragment.IngredientItem> ingredients;
+    // An ingredient is identified by its category and name; there is nothing else to compare
+    private static final DiffUtil.ItemCallback<IngredientsFragment.IngredientItem> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<IngredientsFragment.IngredientItem>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull IngredientsFragment.IngredientItem oldItem,
+                                               @NonNull IngredientsFragment.IngredientItem newItem) {
+                    return Objects.equals(oldItem.getCategory(), newItem.getCategory())
+                            && Objects.equals(oldItem.getName(), newItem.getName());
+                }
+                
+                @Override
+                public boolean areContentsTheSame(@NonNull IngredientsFragment.IngredientItem oldItem,
+                                                  @NonNull IngredientsFragment.IngredientItem newItem) {
+                    return true;
+                }
+            };
+    
+    private final AsyncListDiffer<IngredientsFragment.IngredientItem> differ = new AsyncListDiffer<>(this,
+            new AsyncDifferConfig.Builder<>(DIFF_CALLBACK)
+                    .setBackgroundThreadExecutor(AppExecutors.getInstance().computation())
+                    .build());
     private final OnIngredientActionListener listener;
     
     public IngredientsAdapter(List<IngredientsFragment.IngredientItem> ingredients, OnIngredientActionListener listener) {
-        this.ingredients = ingredients;
         this.listener = listener;
+        updateData(ingredients);
     }
     
     @NonNull
@@ -37,24 +63,21 @@ public class IngredientsAdapter extends RecyclerView.Adapter<IngredientsAdapter.
     
     @Override
     public void onBindViewHolder(@NonNull IngredientViewHolder holder, int position) {
-        IngredientsFragment.IngredientItem ingredient = ingredients.get(position);
+        IngredientsFragment.IngredientItem ingredient = differ.getCurrentList().get(position);
         holder.bind(ingredient, listener);
     }
     
     @Override
     public int getItemCount() {
-        return ingredients != null ? ingredients.size() : 0;
+        return differ.getCurrentList().size();
     }
     
     /**
-     * Updates the adapter data
+     * Updates the adapter data. The list is copied and diffed in the background,
+     * so only added and removed ingredients are animated.
      */
     public void updateData(List<IngredientsFragment.IngredientItem> newIngredients) {
-        ingredients.clear();
-        if (newIngredients != null) {
-            ingredients.addAll(newIngredients);
-        }
-        notifyDataSetChanged();
+        differ.submitList(newIngredients != null ? new ArrayList<>(newIngredients) : new ArrayList<>());
     }
     
     /**
@@ -0,0 +1,48 @@
+package com.example.foodrecipe.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Scroll listener that asks for the next page when the user gets close to the end of a list.
+ * Works with LinearLayoutManager and GridLayoutManager.
+ */
+public abstract class PagingScrollListener extends RecyclerView.OnScrollListener {
+
+    // Number of rows left before the next page is requested
+    private static final int DEFAULT_THRESHOLD = 5;
+
+    private final int threshold;
+
+    public PagingScrollListener() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    public PagingScrollListener(int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (dy <= 0) {
+            return;
+        }
+
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (!(layoutManager instanceof LinearLayoutManager)) {
+            return;
+        }
+
+        int lastVisible = ((LinearLayoutManager) layoutManager).findLastVisibleItemPosition();
+        int itemCount = layoutManager.getItemCount();
+        if (itemCount > 0 && lastVisible >= itemCount - threshold) {
+            onLoadMore();
+        }
+    }
+
+    /**
+     * Called when the next page should be loaded
+     */
+    public abstract void onLoadMore();
+}
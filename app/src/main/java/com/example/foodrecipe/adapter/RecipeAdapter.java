@@ -1,6 +1,5 @@
 package com.example.foodrecipe.adapter;
 
-import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -10,9 +9,9 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.example.foodrecipe.R;
 import com.example.foodrecipe.model.Recipe;
+import com.example.foodrecipe.util.ImageLoader;
 
 import java.util.List;
 
@@ -21,20 +20,23 @@ import java.util.List;
  */
 public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeViewHolder> {
     
-    private final List<Recipe> recipes;
-    private final Context context;
+    // Unique view type so rows can be shared through a RecycledViewPool with other lists
+    public static final int VIEW_TYPE_RECIPE = R.layout.item_recipe;
+    
+    private final RecipeRowDiffer rows = new RecipeRowDiffer(this);
+    // One click listener for every row; the recipe is looked up by adapter position
+    private final View.OnClickListener rowClickListener = this::onRowClick;
     private final OnRecipeClickListener listener;
     
     public RecipeAdapter(List<Recipe> recipes, OnRecipeClickListener listener) {
-        this.recipes = recipes;
         this.listener = listener;
-        this.context = null;
+        setHasStableIds(true);
+        updateData(recipes);
     }
     
-    public RecipeAdapter(Context context, List<Recipe> recipes, OnRecipeClickListener listener) {
-        this.recipes = recipes;
-        this.context = context;
-        this.listener = listener;
+    @Override
+    public int getItemViewType(int position) {
+        return VIEW_TYPE_RECIPE;
     }
     
     @NonNull
@@ -47,24 +49,34 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeView
     
     @Override
     public void onBindViewHolder(@NonNull RecipeViewHolder holder, int position) {
-        Recipe recipe = recipes.get(position);
-        holder.bind(recipe, listener);
+        holder.bind(rows.get(position));
+        holder.itemView.setOnClickListener(rowClickListener);
     }
     
     @Override
     public int getItemCount() {
-        return recipes != null ? recipes.size() : 0;
+        return rows.size();
+    }
+    
+    @Override
+    public long getItemId(int position) {
+        return rows.getItemId(position);
     }
     
     /**
-     * Updates the adapter data
+     * Updates the adapter data. Rows are formatted and diffed in the background,
+     * so only the rows that changed are rebound.
      */
     public void updateData(List<Recipe> newRecipes) {
-        recipes.clear();
-        if (newRecipes != null) {
-            recipes.addAll(newRecipes);
+        rows.submitRecipes(newRecipes);
+    }
+    
+    private void onRowClick(View view) {
+        RecyclerView.ViewHolder holder = (RecyclerView.ViewHolder) view.getTag();
+        int position = holder.getBindingAdapterPosition();
+        if (position != RecyclerView.NO_POSITION && listener != null) {
+            listener.onRecipeClick(rows.get(position).getRecipe());
         }
-        notifyDataSetChanged();
     }
     
     /**
@@ -85,35 +97,20 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeView
         
         public RecipeViewHolder(@NonNull View itemView) {
             super(itemView);
+            itemView.setTag(this);
             recipeImageView = itemView.findViewById(R.id.image_recipe);
             recipeNameTextView = itemView.findViewById(R.id.text_recipe_name);
             cookingTimeTextView = itemView.findViewById(R.id.text_cooking_time);
             servingSizeTextView = itemView.findViewById(R.id.text_serving_size);
         }
         
-        public void bind(Recipe recipe, OnRecipeClickListener listener) {
-            recipeNameTextView.setText(recipe.getName());
-            cookingTimeTextView.setText(String.format("%d min", recipe.getCookingTimeMinutes()));
-            servingSizeTextView.setText(String.format("%d servings", recipe.getServingSize()));
-            
-            // Load image using Glide
-            if (recipe.getImageUrl() != null && !recipe.getImageUrl().isEmpty()) {
-                Glide.with(itemView.getContext())
-                        .load(recipe.getImageUrl())
-                        .placeholder(R.drawable.ic_recipe_placeholder)
-                        .error(R.drawable.ic_recipe_placeholder)
-                        .centerCrop()
-                        .into(recipeImageView);
-            } else {
-                recipeImageView.setImageResource(R.drawable.ic_recipe_placeholder);
-            }
+        public void bind(RecipeRowModel row) {
+            recipeNameTextView.setText(row.getName());
+            cookingTimeTextView.setText(row.getCookingTimeText());
+            servingSizeTextView.setText(row.getServingSizeText());
             
-            // Set click listener
-            itemView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onRecipeClick(recipe);
-                }
-            });
+            ImageLoader.loadThumbnail(recipeImageView, row.getImageVariants(), row.getImageUrl(),
+                    R.drawable.ic_recipe_placeholder);
         }
     }
 }
@@ -0,0 +1,32 @@
+package com.example.foodrecipe.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.example.foodrecipe.model.Recipe;
+
+import java.util.Objects;
+
+/**
+ * Diff callback for recipe lists. Recipes are the same item when their ids match,
+ * and unchanged when every field shown in a recipe row is equal.
+ */
+public class RecipeDiffCallback extends DiffUtil.ItemCallback<Recipe> {
+
+    @Override
+    public boolean areItemsTheSame(@NonNull Recipe oldItem, @NonNull Recipe newItem) {
+        return Objects.equals(oldItem.getId(), newItem.getId());
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull Recipe oldItem, @NonNull Recipe newItem) {
+        return oldItem.getUpdatedAt() == newItem.getUpdatedAt()
+                && oldItem.getCookingTimeMinutes() == newItem.getCookingTimeMinutes()
+                && oldItem.getServingSize() == newItem.getServingSize()
+                && Objects.equals(oldItem.getName(), newItem.getName())
+                && Objects.equals(oldItem.getDescription(), newItem.getDescription())
+                && Objects.equals(oldItem.getCategory(), newItem.getCategory())
+                && Objects.equals(oldItem.getImageUrl(), newItem.getImageUrl())
+                && Objects.equals(oldItem.getImageVariants(), newItem.getImageVariants());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.foodrecipe.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.foodrecipe.model.Recipe;
+import com.example.foodrecipe.util.AppExecutors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the rows of a recipe adapter. Submitted recipes are turned into
+ * {@link RecipeRowModel}s and diffed against the current rows on the computation
+ * executor; the adapter is only notified of the rows that changed.
+ */
+class RecipeRowDiffer {
+
+    private static final RecipeDiffCallback RECIPE_DIFF = new RecipeDiffCallback();
+
+    private static final DiffUtil.ItemCallback<RecipeRowModel> ROW_DIFF = new DiffUtil.ItemCallback<RecipeRowModel>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull RecipeRowModel oldItem, @NonNull RecipeRowModel newItem) {
+            return RECIPE_DIFF.areItemsTheSame(oldItem.getRecipe(), newItem.getRecipe());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull RecipeRowModel oldItem, @NonNull RecipeRowModel newItem) {
+            return RECIPE_DIFF.areContentsTheSame(oldItem.getRecipe(), newItem.getRecipe());
+        }
+    };
+
+    private final AppExecutors executors = AppExecutors.getInstance();
+    private final AsyncListDiffer<RecipeRowModel> differ;
+    private final StableIds stableIds = new StableIds();
+    // Only the latest submission may reach the differ; main thread only
+    private int generation = 0;
+
+    RecipeRowDiffer(RecyclerView.Adapter<?> adapter) {
+        differ = new AsyncListDiffer<>(adapter, new AsyncDifferConfig.Builder<>(ROW_DIFF)
+                .setBackgroundThreadExecutor(executors.computation())
+                .build());
+    }
+
+    /**
+     * Replace the rows with the given recipes. The list is copied, so callers may keep changing it.
+     */
+    void submitRecipes(List<Recipe> recipes) {
+        List<Recipe> snapshot = recipes != null ? new ArrayList<>(recipes) : new ArrayList<>();
+        int submission = ++generation;
+        executors.computation().execute(() -> {
+            List<RecipeRowModel> rows = RecipeRowModel.fromRecipes(snapshot);
+            executors.mainThread().execute(() -> {
+                if (submission == generation) {
+                    differ.submitList(rows);
+                }
+            });
+        });
+    }
+
+    RecipeRowModel get(int position) {
+        return differ.getCurrentList().get(position);
+    }
+
+    int size() {
+        return differ.getCurrentList().size();
+    }
+
+    long getItemId(int position) {
+        return stableIds.get(get(position).getRecipe().getId());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.foodrecipe.adapter;
+
+import com.example.foodrecipe.model.Recipe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Display model for a recipe row. Every string a row shows is formatted once,
+ * off the main thread, so binding a row formats nothing; its text views only get
+ * precomputed values.
+ */
+public class RecipeRowModel {
+
+    // Featured rows show at most this many characters of the description
+    private static final int MAX_DESCRIPTION_LENGTH = 100;
+
+    private final Recipe recipe;
+    private final String cookingTimeText;
+    private final String servingSizeText;
+    private final String shortDescription;
+
+    private RecipeRowModel(Recipe recipe) {
+        this.recipe = recipe;
+        this.cookingTimeText = formatCookingTime(recipe.getCookingTimeMinutes());
+        this.servingSizeText = formatServingSize(recipe.getServingSize());
+        this.shortDescription = truncate(recipe.getDescription());
+    }
+
+    /**
+     * Build row models for a list of recipes
+     */
+    public static List<RecipeRowModel> fromRecipes(List<Recipe> recipes) {
+        List<RecipeRowModel> rows = new ArrayList<>(recipes.size());
+        for (Recipe recipe : recipes) {
+            rows.add(new RecipeRowModel(recipe));
+        }
+        return rows;
+    }
+
+    public static String formatCookingTime(int minutes) {
+        return minutes + " min";
+    }
+
+    public static String formatServingSize(int servings) {
+        return servings + " servings";
+    }
+
+    private static String truncate(String description) {
+        if (description != null && description.length() > MAX_DESCRIPTION_LENGTH) {
+            return description.substring(0, MAX_DESCRIPTION_LENGTH - 3) + "...";
+        }
+        return description;
+    }
+
+    public Recipe getRecipe() {
+        return recipe;
+    }
+
+    public String getName() {
+        return recipe.getName();
+    }
+
+    public String getCategory() {
+        return recipe.getCategory();
+    }
+
+    public String getImageUrl() {
+        return recipe.getImageUrl();
+    }
+
+    public Map<String, String> getImageVariants() {
+        return recipe.getImageVariants();
+    }
+
+    public String getCookingTimeText() {
+        return cookingTimeText;
+    }
+
+    public String getServingSizeText() {
+        return servingSizeText;
+    }
+
+    public String getShortDescription() {
+        return shortDescription;
+    }
+}
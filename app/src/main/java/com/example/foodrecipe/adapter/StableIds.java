@@ -0,0 +1,27 @@
+package com.example.foodrecipe.adapter;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps string document ids to the long ids RecyclerView needs for stable ids.
+ * A given string keeps the same long for the lifetime of the adapter.
+ */
+class StableIds {
+    private final Map<String, Long> ids = new HashMap<>();
+    private long nextId = 1;
+
+    long get(String key) {
+        if (key == null) {
+            return RecyclerView.NO_ID;
+        }
+        Long id = ids.get(key);
+        if (id == null) {
+            id = nextId++;
+            ids.put(key, id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.foodrecipe.database;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Local Room database used as an offline cache for Firestore data
+ */
+@Database(entities = {RecipeEntity.class, IngredientEntity.class, UploadJobEntity.class, MutationEntity.class,
+        SyncStateEntity.class},
+        version = 5, exportSchema = false)
+@TypeConverters(Converters.class)
+public abstract class AppDatabase extends RoomDatabase {
+    private static final String DATABASE_NAME = "food_recipe.db";
+
+    // Queued uploads are not cache and must survive upgrades, so schema changes from here on need a migration
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `upload_jobs` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`recipeId` TEXT NOT NULL, `variant` TEXT NOT NULL, "
+                    + "`localPath` TEXT NOT NULL, `storagePath` TEXT NOT NULL, "
+                    + "`contentType` TEXT, `sessionUri` TEXT, `downloadUrl` TEXT, "
+                    + "`attempts` INTEGER NOT NULL, `nextAttemptAt` INTEGER NOT NULL, "
+                    + "`createdAt` INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_upload_jobs_recipeId` ON `upload_jobs` (`recipeId`)");
+        }
+    };
+
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `pending_mutations` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`mutationKey` TEXT NOT NULL, `type` TEXT NOT NULL, "
+                    + "`userId` TEXT, `recipeId` TEXT, `category` TEXT, `value` TEXT, "
+                    + "`added` INTEGER NOT NULL, `createdAt` INTEGER NOT NULL)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_pending_mutations_mutationKey` "
+                    + "ON `pending_mutations` (`mutationKey`)");
+        }
+    };
+
+    // No sync state yet, so the first sync after the upgrade is a full load
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `sync_state` ("
+                    + "`collection` TEXT NOT NULL, `updatedAt` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`collection`))");
+        }
+    };
+
+    // Singleton instance
+    private static AppDatabase instance;
+
+    public abstract RecipeDao recipeDao();
+
+    public abstract UploadJobDao uploadJobDao();
+
+    public abstract MutationDao mutationDao();
+
+    public static synchronized AppDatabase getInstance(Context context) {
+        if (instance == null) {
+            instance = Room.databaseBuilder(context.getApplicationContext(),
+                            AppDatabase.class, DATABASE_NAME)
+                    .addMigrations(MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5)
+                    // Version 1 only held cached recipes; anything later may hold queued
+                    // uploads and writes, so a missing migration must fail rather than wipe them
+                    .fallbackToDestructiveMigrationFrom(1)
+                    .build();
+        }
+        return instance;
+    }
+}
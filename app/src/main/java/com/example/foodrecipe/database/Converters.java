@@ -0,0 +1,74 @@
+package com.example.foodrecipe.database;
+
+import android.util.Log;
+
+import androidx.room.TypeConverter;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Room type converters that store collection fields as JSON text
+ */
+public class Converters {
+    private static final String TAG = "Converters";
+
+    @TypeConverter
+    public static String fromStringList(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        return new JSONArray(values).toString();
+    }
+
+    @TypeConverter
+    public static List<String> toStringList(String json) {
+        if (json == null) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        try {
+            JSONArray array = new JSONArray(json);
+            for (int i = 0; i < array.length(); i++) {
+                values.add(array.optString(i));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Error reading cached string list", e);
+        }
+        return values;
+    }
+
+    @TypeConverter
+    public static String fromStringMap(Map<String, String> values) {
+        if (values == null) {
+            return null;
+        }
+        return new JSONObject(values).toString();
+    }
+
+    @TypeConverter
+    public static Map<String, String> toStringMap(String json) {
+        if (json == null) {
+            return null;
+        }
+        Map<String, String> values = new HashMap<>();
+        try {
+            JSONObject object = new JSONObject(json);
+            Iterator<String> keys = object.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                values.put(key, object.optString(key));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Error reading cached string map", e);
+        }
+        return values;
+    }
+}
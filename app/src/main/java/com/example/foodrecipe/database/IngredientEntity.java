@@ -0,0 +1,102 @@
+package com.example.foodrecipe.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+import com.example.foodrecipe.model.Recipe;
+
+/**
+ * Room entity for one ingredient line of a cached recipe
+ */
+@Entity(tableName = "recipe_ingredients",
+        primaryKeys = {"recipeId", "position"},
+        foreignKeys = @ForeignKey(entity = RecipeEntity.class,
+                parentColumns = "id",
+                childColumns = "recipeId",
+                onDelete = ForeignKey.CASCADE),
+        indices = {@Index("recipeId"), @Index("name")})
+public class IngredientEntity {
+    @NonNull
+    private String recipeId = "";
+    private int position;
+    private String name;
+    private String quantity;
+    private String unit;
+    private String category;
+
+    public IngredientEntity() {
+    }
+
+    /**
+     * Create an entity for the ingredient at the given position of a recipe
+     */
+    public static IngredientEntity fromIngredient(String recipeId, int position, Recipe.Ingredient ingredient) {
+        IngredientEntity entity = new IngredientEntity();
+        entity.recipeId = recipeId;
+        entity.position = position;
+        entity.name = ingredient.getName();
+        entity.quantity = ingredient.getQuantity();
+        entity.unit = ingredient.getUnit();
+        entity.category = ingredient.getCategory();
+        return entity;
+    }
+
+    /**
+     * Convert back to the nested model class
+     */
+    public Recipe.Ingredient toIngredient() {
+        return new Recipe.Ingredient(name, quantity, unit, category);
+    }
+
+    // Getters and setters
+    @NonNull
+    public String getRecipeId() {
+        return recipeId;
+    }
+
+    public void setRecipeId(@NonNull String recipeId) {
+        this.recipeId = recipeId;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(String quantity) {
+        this.quantity = quantity;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public void setUnit(String unit) {
+        this.unit = unit;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+}
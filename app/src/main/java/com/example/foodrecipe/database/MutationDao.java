@@ -0,0 +1,28 @@
+package com.example.foodrecipe.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Data access object for the pending write log
+ */
+@Dao
+public abstract class MutationDao {
+
+    /**
+     * Record a change, replacing any pending change to the same key. Returns the new row id.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    public abstract long putMutation(MutationEntity mutation);
+
+    @Query("SELECT * FROM pending_mutations ORDER BY id")
+    public abstract List<MutationEntity> getMutations();
+
+    @Query("DELETE FROM pending_mutations WHERE id IN (:ids)")
+    public abstract void deleteMutations(Collection<Long> ids);
+}
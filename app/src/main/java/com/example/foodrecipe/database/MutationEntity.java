@@ -0,0 +1,194 @@
+package com.example.foodrecipe.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * A local change waiting to be written to Firestore. Each row is the latest state of
+ * one key, e.g. whether a recipe is a favorite; a newer change to the same key replaces
+ * the row, so repeated toggles are sent as a single write.
+ */
+@Entity(tableName = "pending_mutations",
+        indices = {@Index(value = "mutationKey", unique = true)})
+public class MutationEntity {
+    public static final String TYPE_FAVORITE = "favorite";
+    public static final String TYPE_INGREDIENT = "ingredient";
+    public static final String TYPE_NOTES = "notes";
+    public static final String TYPE_DIETARY_PREFERENCE = "dietaryPreference";
+    public static final String TYPE_USER_FIELD = "userField";
+    public static final String TYPE_USER_FLAG = "userFlag";
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+    // What the change is about; changes with the same key coalesce
+    @NonNull
+    private String mutationKey = "";
+    @NonNull
+    private String type = "";
+    // User document the change is written to, for everything but notes
+    private String userId;
+    // Recipe the change is about, for favorites and notes
+    private String recipeId;
+    // Ingredient category, or the name of the user field being set
+    private String category;
+    // Ingredient name, dietary preference, note text or text field value
+    private String value;
+    // Add or remove for array elements, or the value of a flag
+    private boolean added;
+    private long createdAt;
+
+    public MutationEntity() {
+    }
+
+    @Ignore
+    private MutationEntity(@NonNull String mutationKey, @NonNull String type) {
+        this.mutationKey = mutationKey;
+        this.type = type;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Add a recipe to, or remove it from, a user's favorites
+     */
+    public static MutationEntity favorite(String userId, String recipeId, boolean added) {
+        MutationEntity mutation = new MutationEntity(TYPE_FAVORITE + "/" + userId + "/" + recipeId, TYPE_FAVORITE);
+        mutation.userId = userId;
+        mutation.recipeId = recipeId;
+        mutation.added = added;
+        return mutation;
+    }
+
+    /**
+     * Add an ingredient to, or remove it from, one category of a user's ingredients
+     */
+    public static MutationEntity ingredient(String userId, String category, String ingredient, boolean added) {
+        MutationEntity mutation = new MutationEntity(
+                TYPE_INGREDIENT + "/" + userId + "/" + category + "/" + ingredient, TYPE_INGREDIENT);
+        mutation.userId = userId;
+        mutation.category = category;
+        mutation.value = ingredient;
+        mutation.added = added;
+        return mutation;
+    }
+
+    /**
+     * Add a dietary preference to, or remove it from, a user's preferences
+     */
+    public static MutationEntity dietaryPreference(String userId, String preference, boolean added) {
+        MutationEntity mutation = new MutationEntity(
+                TYPE_DIETARY_PREFERENCE + "/" + userId + "/" + preference, TYPE_DIETARY_PREFERENCE);
+        mutation.userId = userId;
+        mutation.value = preference;
+        mutation.added = added;
+        return mutation;
+    }
+
+    /**
+     * Set a text field of a user document, e.g. the name
+     */
+    public static MutationEntity userField(String userId, String field, String value) {
+        MutationEntity mutation = new MutationEntity(TYPE_USER_FIELD + "/" + userId + "/" + field, TYPE_USER_FIELD);
+        mutation.userId = userId;
+        mutation.category = field;
+        mutation.value = value;
+        return mutation;
+    }
+
+    /**
+     * Set a boolean field of a user document, e.g. notificationsEnabled
+     */
+    public static MutationEntity userFlag(String userId, String field, boolean enabled) {
+        MutationEntity mutation = new MutationEntity(TYPE_USER_FLAG + "/" + userId + "/" + field, TYPE_USER_FLAG);
+        mutation.userId = userId;
+        mutation.category = field;
+        mutation.added = enabled;
+        return mutation;
+    }
+
+    /**
+     * Replace the notes of a recipe
+     */
+    public static MutationEntity notes(String recipeId, String notes) {
+        MutationEntity mutation = new MutationEntity(TYPE_NOTES + "/" + recipeId, TYPE_NOTES);
+        mutation.recipeId = recipeId;
+        mutation.value = notes;
+        return mutation;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    @NonNull
+    public String getMutationKey() {
+        return mutationKey;
+    }
+
+    public void setMutationKey(@NonNull String mutationKey) {
+        this.mutationKey = mutationKey;
+    }
+
+    @NonNull
+    public String getType() {
+        return type;
+    }
+
+    public void setType(@NonNull String type) {
+        this.type = type;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getRecipeId() {
+        return recipeId;
+    }
+
+    public void setRecipeId(String recipeId) {
+        this.recipeId = recipeId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public boolean isAdded() {
+        return added;
+    }
+
+    public void setAdded(boolean added) {
+        this.added = added;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+}
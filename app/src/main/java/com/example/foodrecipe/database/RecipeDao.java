@@ -0,0 +1,131 @@
+package com.example.foodrecipe.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.foodrecipe.model.Recipe;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Data access object for the local recipe cache
+ */
+@Dao
+public abstract class RecipeDao {
+
+    @Transaction
+    @Query("SELECT * FROM recipes ORDER BY createdAt DESC")
+    public abstract List<RecipeWithIngredients> getAllRecipes();
+
+    @Transaction
+    @Query("SELECT * FROM recipes ORDER BY createdAt DESC LIMIT :limit")
+    public abstract List<RecipeWithIngredients> getRecentRecipes(int limit);
+
+    @Transaction
+    @Query("SELECT * FROM recipes WHERE category = :category ORDER BY createdAt DESC")
+    public abstract List<RecipeWithIngredients> getRecipesByCategory(String category);
+
+    @Transaction
+    @Query("SELECT * FROM recipes WHERE cookingTime <= :maxMinutes ORDER BY createdAt DESC")
+    public abstract List<RecipeWithIngredients> getRecipesByCookingTime(int maxMinutes);
+
+    @Transaction
+    @Query("SELECT * FROM recipes WHERE servingSize = :servingSize ORDER BY createdAt DESC")
+    public abstract List<RecipeWithIngredients> getRecipesByServingSize(int servingSize);
+
+    @Transaction
+    @Query("SELECT * FROM recipes WHERE name LIKE :query || '%' ORDER BY name")
+    public abstract List<RecipeWithIngredients> searchRecipesByName(String query);
+
+    @Transaction
+    @Query("SELECT * FROM recipes WHERE id = :recipeId")
+    public abstract RecipeWithIngredients getRecipeById(String recipeId);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    protected abstract void insertRecipeEntities(List<RecipeEntity> recipes);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    protected abstract void insertIngredientEntities(List<IngredientEntity> ingredients);
+
+    @Query("DELETE FROM recipe_ingredients WHERE recipeId = :recipeId")
+    protected abstract void deleteIngredientsForRecipe(String recipeId);
+
+    @Query("DELETE FROM recipes")
+    protected abstract void deleteAllRecipes();
+
+    @Query("UPDATE recipes SET notes = :notes WHERE id = :recipeId")
+    public abstract void updateNotes(String recipeId, String notes);
+
+    /**
+     * Delete recipes by id; their ingredients go with them through the foreign key
+     */
+    @Query("DELETE FROM recipes WHERE id IN (:recipeIds)")
+    public abstract void deleteRecipes(Collection<String> recipeIds);
+
+    /**
+     * Insert or replace recipes together with their ingredients
+     */
+    @Transaction
+    public void upsertRecipes(List<Recipe> recipes) {
+        List<RecipeEntity> recipeEntities = new ArrayList<>(recipes.size());
+        List<IngredientEntity> ingredientEntities = new ArrayList<>();
+        for (Recipe recipe : recipes) {
+            if (recipe.getId() == null) {
+                continue;
+            }
+            recipeEntities.add(RecipeEntity.fromRecipe(recipe));
+            deleteIngredientsForRecipe(recipe.getId());
+            if (recipe.getIngredients() != null) {
+                int position = 0;
+                for (Recipe.Ingredient ingredient : recipe.getIngredients()) {
+                    ingredientEntities.add(IngredientEntity.fromIngredient(recipe.getId(), position++, ingredient));
+                }
+            }
+        }
+        insertRecipeEntities(recipeEntities);
+        insertIngredientEntities(ingredientEntities);
+    }
+
+    @Query("SELECT * FROM sync_state WHERE collection = '" + SyncStateEntity.COLLECTION_RECIPES + "'")
+    public abstract SyncStateEntity getSyncState();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    protected abstract void putSyncState(SyncStateEntity syncState);
+
+    @Query("UPDATE sync_state SET updatedAt = :updatedAt "
+            + "WHERE collection = '" + SyncStateEntity.COLLECTION_RECIPES + "' AND updatedAt < :updatedAt")
+    protected abstract void advanceSyncState(long updatedAt);
+
+    /**
+     * Replace the whole cache with a full snapshot of the recipes collection and record
+     * the sync in the same transaction
+     */
+    @Transaction
+    public void replaceAllRecipes(List<Recipe> recipes, long updatedAt) {
+        deleteAllRecipes();
+        upsertRecipes(recipes);
+        putSyncState(new SyncStateEntity(SyncStateEntity.COLLECTION_RECIPES, updatedAt));
+    }
+
+    /**
+     * Apply a batch of synced changes and move the checkpoint forward in the same transaction.
+     * Pass 0 to leave the checkpoint alone; it never moves back and is never created here.
+     */
+    @Transaction
+    public void applyRecipeChanges(List<Recipe> upserted, Collection<String> removedIds, long updatedAt) {
+        if (!upserted.isEmpty()) {
+            upsertRecipes(upserted);
+        }
+        if (!removedIds.isEmpty()) {
+            deleteRecipes(removedIds);
+        }
+        if (updatedAt > 0) {
+            advanceSyncState(updatedAt);
+        }
+    }
+}
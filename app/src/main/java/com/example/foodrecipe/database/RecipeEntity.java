@@ -0,0 +1,233 @@
+package com.example.foodrecipe.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import com.example.foodrecipe.model.Recipe;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Room entity for a cached recipe. Ingredients live in their own table.
+ */
+@Entity(tableName = "recipes",
+        indices = {@Index("category"), @Index("createdAt")})
+public class RecipeEntity {
+    @PrimaryKey
+    @NonNull
+    private String id = "";
+    private String name;
+    private String description;
+    private String imageUrl;
+    private Map<String, String> imageVariants;
+    private String videoId;
+    private int cookingTime;
+    private int servingSize;
+    private String category;
+    private Map<String, String> nutritionValues;
+    private List<String> instructions;
+    private List<String> tags;
+    private String createdBy;
+    private long createdAt;
+    private long updatedAt;
+    private int likesCount;
+    private String notes;
+
+    public RecipeEntity() {
+    }
+
+    /**
+     * Create an entity from a recipe fetched from Firestore
+     */
+    public static RecipeEntity fromRecipe(Recipe recipe) {
+        RecipeEntity entity = new RecipeEntity();
+        entity.id = recipe.getId();
+        entity.name = recipe.getName();
+        entity.description = recipe.getDescription();
+        entity.imageUrl = recipe.getImageUrl();
+        entity.imageVariants = recipe.getImageVariants();
+        entity.videoId = recipe.getVideoId();
+        entity.cookingTime = recipe.getCookingTimeMinutes();
+        entity.servingSize = recipe.getServingSize();
+        entity.category = recipe.getCategory();
+        entity.nutritionValues = recipe.getNutritionValues();
+        entity.instructions = recipe.getInstructions();
+        entity.tags = recipe.getTags();
+        entity.createdBy = recipe.getCreatedBy();
+        entity.createdAt = recipe.getCreatedAt();
+        entity.updatedAt = recipe.getUpdatedAt();
+        entity.likesCount = recipe.getLikesCount();
+        entity.notes = recipe.getNotes();
+        return entity;
+    }
+
+    /**
+     * Convert back to the model class used by the UI
+     */
+    public Recipe toRecipe() {
+        Recipe recipe = new Recipe();
+        recipe.setId(id);
+        recipe.setName(name);
+        recipe.setDescription(description);
+        recipe.setImageUrl(imageUrl);
+        recipe.setImageVariants(imageVariants);
+        recipe.setVideoId(videoId);
+        recipe.setCookingTime(cookingTime);
+        recipe.setServingSize(servingSize);
+        recipe.setCategory(category);
+        recipe.setNutritionValues(nutritionValues);
+        if (instructions != null) {
+            recipe.setInstructions(instructions);
+        }
+        if (tags != null) {
+            recipe.setTags(tags);
+        }
+        recipe.setCreatedBy(createdBy);
+        recipe.setCreatedAt(createdAt);
+        recipe.setUpdatedAt(updatedAt);
+        recipe.setLikesCount(likesCount);
+        recipe.setNotes(notes);
+        return recipe;
+    }
+
+    // Getters and setters
+    @NonNull
+    public String getId() {
+        return id;
+    }
+
+    public void setId(@NonNull String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public Map<String, String> getImageVariants() {
+        return imageVariants;
+    }
+
+    public void setImageVariants(Map<String, String> imageVariants) {
+        this.imageVariants = imageVariants;
+    }
+
+    public String getVideoId() {
+        return videoId;
+    }
+
+    public void setVideoId(String videoId) {
+        this.videoId = videoId;
+    }
+
+    public int getCookingTime() {
+        return cookingTime;
+    }
+
+    public void setCookingTime(int cookingTime) {
+        this.cookingTime = cookingTime;
+    }
+
+    public int getServingSize() {
+        return servingSize;
+    }
+
+    public void setServingSize(int servingSize) {
+        this.servingSize = servingSize;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public Map<String, String> getNutritionValues() {
+        return nutritionValues;
+    }
+
+    public void setNutritionValues(Map<String, String> nutritionValues) {
+        this.nutritionValues = nutritionValues;
+    }
+
+    public List<String> getInstructions() {
+        return instructions;
+    }
+
+    public void setInstructions(List<String> instructions) {
+        this.instructions = instructions;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public int getLikesCount() {
+        return likesCount;
+    }
+
+    public void setLikesCount(int likesCount) {
+        this.likesCount = likesCount;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.foodrecipe.database;
+
+import androidx.room.Embedded;
+import androidx.room.Relation;
+
+import com.example.foodrecipe.model.Recipe;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A cached recipe joined with its ingredient rows
+ */
+public class RecipeWithIngredients {
+    @Embedded
+    public RecipeEntity recipe;
+
+    @Relation(parentColumn = "id", entityColumn = "recipeId")
+    public List<IngredientEntity> ingredients;
+
+    /**
+     * Convert to the model class, keeping the original ingredient order
+     */
+    public Recipe toRecipe() {
+        Recipe result = recipe.toRecipe();
+        if (ingredients != null && !ingredients.isEmpty()) {
+            List<IngredientEntity> sorted = new ArrayList<>(ingredients);
+            Collections.sort(sorted, Comparator.comparingInt(IngredientEntity::getPosition));
+            List<Recipe.Ingredient> recipeIngredients = new ArrayList<>(sorted.size());
+            for (IngredientEntity ingredient : sorted) {
+                recipeIngredients.add(ingredient.toIngredient());
+            }
+            result.setIngredients(recipeIngredients);
+        }
+        return result;
+    }
+
+    /**
+     * Convert a list of cached rows to model objects
+     */
+    public static List<Recipe> toRecipes(List<RecipeWithIngredients> rows) {
+        List<Recipe> recipes = new ArrayList<>();
+        if (rows != null) {
+            for (RecipeWithIngredients row : rows) {
+                recipes.add(row.toRecipe());
+            }
+        }
+        return recipes;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.foodrecipe.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+/**
+ * Sync state of a cached Firestore collection. The row only exists once a full load of
+ * the collection has been committed, and lives in the same database as the cached rows,
+ * so anything that wipes the cache also forgets the sync.
+ */
+@Entity(tableName = "sync_state")
+public class SyncStateEntity {
+    public static final String COLLECTION_RECIPES = "recipes";
+
+    @PrimaryKey
+    @NonNull
+    private String collection = "";
+    // Largest server updatedAt the cache has seen; the next sync asks for documents written after it
+    private long updatedAt;
+
+    public SyncStateEntity() {
+    }
+
+    @Ignore
+    public SyncStateEntity(@NonNull String collection, long updatedAt) {
+        this.collection = collection;
+        this.updatedAt = updatedAt;
+    }
+
+    @NonNull
+    public String getCollection() {
+        return collection;
+    }
+
+    public void setCollection(@NonNull String collection) {
+        this.collection = collection;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.foodrecipe.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Update;
+
+import java.util.List;
+
+/**
+ * Data access object for the persistent image upload queue
+ */
+@Dao
+public abstract class UploadJobDao {
+
+    @Insert
+    public abstract void insertJobs(List<UploadJobEntity> jobs);
+
+    @Update
+    public abstract void updateJob(UploadJobEntity job);
+
+    @Query("SELECT * FROM upload_jobs WHERE downloadUrl IS NULL ORDER BY nextAttemptAt")
+    public abstract List<UploadJobEntity> getPendingJobs();
+
+    @Query("SELECT * FROM upload_jobs WHERE recipeId = :recipeId")
+    public abstract List<UploadJobEntity> getJobsForRecipe(String recipeId);
+
+    /**
+     * Recipes whose every variant has been uploaded but not yet linked
+     */
+    @Query("SELECT recipeId FROM upload_jobs GROUP BY recipeId HAVING COUNT(downloadUrl) = COUNT(*)")
+    public abstract List<String> getCompletedRecipeIds();
+
+    @Query("DELETE FROM upload_jobs WHERE recipeId = :recipeId")
+    public abstract void deleteJobsForRecipe(String recipeId);
+}
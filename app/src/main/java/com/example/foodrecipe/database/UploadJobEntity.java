@@ -0,0 +1,144 @@
+package com.example.foodrecipe.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * A queued upload of one image variant. Jobs outlive the process, so an upload
+ * interrupted by the app being killed is resumed on the next start.
+ */
+@Entity(tableName = "upload_jobs",
+        indices = {@Index("recipeId")})
+public class UploadJobEntity {
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+    // Recipe the uploaded URL is written to
+    @NonNull
+    private String recipeId = "";
+    // Image variant name, see ImageVariants
+    @NonNull
+    private String variant = "";
+    // Preprocessed file in app storage, deleted once the recipe is linked
+    @NonNull
+    private String localPath = "";
+    @NonNull
+    private String storagePath = "";
+    private String contentType;
+    // Resumable session of the upload in progress, or null before the first chunk
+    private String sessionUri;
+    // Set when the upload finished
+    private String downloadUrl;
+    private int attempts;
+    // Earliest time the next attempt may start, in epoch millis
+    private long nextAttemptAt;
+    private long createdAt;
+
+    public UploadJobEntity() {
+    }
+
+    @Ignore
+    public UploadJobEntity(@NonNull String recipeId, @NonNull String variant, @NonNull String localPath,
+                           @NonNull String storagePath, String contentType) {
+        this.recipeId = recipeId;
+        this.variant = variant;
+        this.localPath = localPath;
+        this.storagePath = storagePath;
+        this.contentType = contentType;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    @NonNull
+    public String getRecipeId() {
+        return recipeId;
+    }
+
+    public void setRecipeId(@NonNull String recipeId) {
+        this.recipeId = recipeId;
+    }
+
+    @NonNull
+    public String getVariant() {
+        return variant;
+    }
+
+    public void setVariant(@NonNull String variant) {
+        this.variant = variant;
+    }
+
+    @NonNull
+    public String getLocalPath() {
+        return localPath;
+    }
+
+    public void setLocalPath(@NonNull String localPath) {
+        this.localPath = localPath;
+    }
+
+    @NonNull
+    public String getStoragePath() {
+        return storagePath;
+    }
+
+    public void setStoragePath(@NonNull String storagePath) {
+        this.storagePath = storagePath;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getSessionUri() {
+        return sessionUri;
+    }
+
+    public void setSessionUri(String sessionUri) {
+        this.sessionUri = sessionUri;
+    }
+
+    public String getDownloadUrl() {
+        return downloadUrl;
+    }
+
+    public void setDownloadUrl(String downloadUrl) {
+        this.downloadUrl = downloadUrl;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public long getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(long nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+}
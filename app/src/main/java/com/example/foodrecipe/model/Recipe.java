@@ -13,6 +13,7 @@ public class Recipe implements Serializable {
     private String name;
     private String description;
     private String imageUrl;
+    private Map<String, String> imageVariants; // Download URL per size, e.g. {"thumb": ..., "card": ..., "hero": ...}
     private String videoId; // YouTube video ID
     private int cookingTime; // in minutes
     private int servingSize;
@@ -26,6 +27,7 @@ public class Recipe implements Serializable {
     private long updatedAt;
     private int likesCount;
     private String notes; // User personal notes for the recipe
+    private boolean deleted; // Tombstone, kept so delta syncs see the deletion
 
     // Default constructor required for Firestore
     public Recipe() {
@@ -82,6 +84,14 @@ public class Recipe implements Serializable {
         this.imageUrl = imageUrl;
     }
 
+    public Map<String, String> getImageVariants() {
+        return imageVariants;
+    }
+
+    public void setImageVariants(Map<String, String> imageVariants) {
+        this.imageVariants = imageVariants;
+    }
+
     public String getVideoId() {
         return videoId;
     }
@@ -186,6 +196,14 @@ public class Recipe implements Serializable {
         this.notes = notes;
     }
 
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
     // Helper methods
     public void addIngredient(Ingredient ingredient) {
         if (ingredients == null) {
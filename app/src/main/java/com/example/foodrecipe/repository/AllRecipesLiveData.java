@@ -0,0 +1,285 @@
+package com.example.foodrecipe.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+
+import com.example.foodrecipe.database.RecipeDao;
+import com.example.foodrecipe.database.RecipeWithIngredients;
+import com.example.foodrecipe.database.SyncStateEntity;
+import com.example.foodrecipe.model.Recipe;
+import com.example.foodrecipe.search.RecipeIndexes;
+import com.example.foodrecipe.util.AppExecutors;
+import com.example.foodrecipe.util.FirebaseHelper;
+import com.example.foodrecipe.util.QueryTiming;
+import com.example.foodrecipe.util.RecipeCodec;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SnapshotMetadata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single shared, live stream of the whole recipes collection.
+ * While anyone observes it, one Firestore snapshot listener is attached; only the
+ * screens that need the local search indexes observe it. Once the Room cache holds a full sync, the listener only asks for recipes
+ * written after the checkpoint stored next to it, so starting the app or coming back online
+ * downloads what changed rather than the whole collection. Each change is merged into
+ * the list, the search indexes and the Room cache; tombstones remove the recipe.
+ */
+class AllRecipesLiveData extends LiveData<List<Recipe>> {
+    private static final String TAG = "AllRecipesLiveData";
+
+    // Keep listening this long after the last observer leaves, so switching tabs does not re-attach
+    private static final long DETACH_DELAY_MS = 30 * 1000;
+    // Commits are not always visible in updatedAt order, so re-read a margin below the checkpoint
+    private static final long CHECKPOINT_OVERLAP_MS = 10 * 60 * 1000;
+
+    private final FirebaseHelper firebaseHelper;
+    private final RecipeDao recipeDao;
+    private final AppExecutors executors;
+    private final RecipeIndexes recipeIndexes;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable detachRunnable = this::detach;
+
+    // Current listener and its registration, null while detached; main thread only
+    private SyncListener activeListener;
+    private ListenerRegistration registration;
+
+    // Every known recipe by id, mirroring the Room cache; disk executor only
+    private final Map<String, Recipe> recipes = new LinkedHashMap<>();
+    private boolean cacheLoaded;
+
+    AllRecipesLiveData(FirebaseHelper firebaseHelper, RecipeDao recipeDao, AppExecutors executors,
+                       RecipeIndexes recipeIndexes) {
+        this.firebaseHelper = firebaseHelper;
+        this.recipeDao = recipeDao;
+        this.executors = executors;
+        this.recipeIndexes = recipeIndexes;
+    }
+
+    @Override
+    protected void onActive() {
+        attach();
+    }
+
+    @Override
+    protected void onInactive() {
+        scheduleDetach();
+    }
+
+    /**
+     * Re-attach the snapshot listener if an error detached it while someone is observing.
+     * While attached the stream is always current, so there is nothing to refresh.
+     */
+    void refresh() {
+        if (hasActiveObservers()) {
+            attach();
+        }
+    }
+
+    private void attach() {
+        handler.removeCallbacks(detachRunnable);
+        if (activeListener != null) {
+            return;
+        }
+
+        // Events run one at a time on the disk executor, so changes apply in order
+        // and the Room writes need no further hop
+        SyncListener listener = new SyncListener();
+        activeListener = listener;
+        executors.diskIO().execute(listener::start);
+    }
+
+    private void scheduleDetach() {
+        if (!hasActiveObservers()) {
+            handler.removeCallbacks(detachRunnable);
+            handler.postDelayed(detachRunnable, DETACH_DELAY_MS);
+        }
+    }
+
+    private void detach() {
+        if (activeListener == null || hasActiveObservers()) {
+            return;
+        }
+        activeListener = null;
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+    }
+
+    /**
+     * Load the Room cache once and show it until the network catches up. Disk executor only.
+     */
+    private void loadCache() {
+        if (cacheLoaded) {
+            return;
+        }
+        cacheLoaded = true;
+
+        List<Recipe> cached = RecipeWithIngredients.toRecipes(recipeDao.getAllRecipes());
+        if (cached.isEmpty()) {
+            return;
+        }
+        for (Recipe recipe : cached) {
+            recipes.put(recipe.getId(), recipe);
+        }
+        recipeIndexes.putAll(cached);
+        List<Recipe> value = currentRecipes();
+        executors.mainThread().execute(() -> {
+            if (getValue() == null) {
+                setValue(value);
+            }
+        });
+    }
+
+    private List<Recipe> currentRecipes() {
+        return Collections.unmodifiableList(new ArrayList<>(recipes.values()));
+    }
+
+    /**
+     * Applies the snapshots of one registration
+     */
+    private class SyncListener implements EventListener<QuerySnapshot> {
+        // True until a full load of the collection has been applied; disk executor only
+        private boolean needsFullLoad;
+
+        /**
+         * Pick the query and register. Disk executor only.
+         */
+        void start() {
+            loadCache();
+
+            // Until a full load has been committed, the cache may hold any subset of the
+            // collection, so there is nothing complete to merge changes into
+            SyncStateEntity syncState = recipeDao.getSyncState();
+            needsFullLoad = syncState == null;
+            ListenerRegistration started = needsFullLoad
+                    ? firebaseHelper.addRecipesListener(executors.diskIO(), this)
+                    : firebaseHelper.addRecipeChangesListener(syncState.getUpdatedAt() - CHECKPOINT_OVERLAP_MS,
+                            executors.diskIO(), this);
+
+            executors.mainThread().execute(() -> {
+                if (activeListener == this) {
+                    registration = started;
+                } else {
+                    // Detached while starting
+                    started.remove();
+                }
+            });
+        }
+
+        @Override
+        public void onEvent(QuerySnapshot snapshot, FirebaseFirestoreException error) {
+            if (error != null) {
+                Log.e(TAG, "Error listening for recipes", error);
+                executors.mainThread().execute(() -> {
+                    if (activeListener == this) {
+                        activeListener = null;
+                        registration = null;
+                    }
+                    // Keep showing cached results if we already have them
+                    if (getValue() == null) {
+                        setValue(Collections.emptyList());
+                    }
+                });
+                return;
+            }
+
+            long start = QueryTiming.start();
+            RecipeChanges changes = needsFullLoad ? applyFull(snapshot) : applyDelta(snapshot);
+            if (changes == null) {
+                return;
+            }
+            QueryTiming.logMapping("recipesSync", changes.getUpserted().size(), start);
+
+            List<Recipe> value = currentRecipes();
+            QueryTiming.deliverOnMainThread("recipesSync", () -> setValue(value));
+        }
+
+        private RecipeChanges applyFull(QuerySnapshot snapshot) {
+            // Only the server can say which cached recipes no longer exist. The full listener
+            // includes metadata changes, so a server confirmation of an unchanged cached
+            // result still arrives as its own event.
+            if (snapshot.getMetadata().isFromCache()) {
+                return null;
+            }
+
+            needsFullLoad = false;
+            List<Recipe> live = RecipeCodec.fromQuery(snapshot);
+            recipes.clear();
+            for (Recipe recipe : live) {
+                recipes.put(recipe.getId(), recipe);
+            }
+            recipeIndexes.replaceAll(live);
+            // Pending server timestamps read as null, so local writes cannot raise the checkpoint
+            recipeDao.replaceAllRecipes(live, maxServerUpdatedAt(snapshot.getDocuments()));
+            return new RecipeChanges(live, Collections.emptySet(), true);
+        }
+
+        private RecipeChanges applyDelta(QuerySnapshot snapshot) {
+            List<Recipe> upserted = new ArrayList<>();
+            Set<String> removedIds = new HashSet<>();
+
+            List<DocumentSnapshot> changed = new ArrayList<>();
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                QueryDocumentSnapshot document = change.getDocument();
+                Recipe recipe = RecipeCodec.fromSnapshot(document);
+                changed.add(document);
+                // Hard deletes still arrive as REMOVED while the document was in the result
+                if (change.getType() == DocumentChange.Type.REMOVED || recipe == null || recipe.isDeleted()) {
+                    if (recipes.remove(document.getId()) != null) {
+                        removedIds.add(document.getId());
+                    }
+                } else {
+                    recipes.put(recipe.getId(), recipe);
+                    upserted.add(recipe);
+                }
+            }
+
+            if (!upserted.isEmpty() || !removedIds.isEmpty()) {
+                recipeIndexes.putAll(upserted);
+                for (String recipeId : removedIds) {
+                    recipeIndexes.remove(recipeId);
+                }
+            }
+            // Cached snapshots may be missing newer server writes, and pending ones carry no
+            // server timestamp yet, so only fully acknowledged server snapshots move the checkpoint
+            SnapshotMetadata metadata = snapshot.getMetadata();
+            long checkpoint = !metadata.isFromCache() && !metadata.hasPendingWrites() ? maxServerUpdatedAt(changed) : 0;
+            if (!upserted.isEmpty() || !removedIds.isEmpty() || checkpoint > 0) {
+                recipeDao.applyRecipeChanges(upserted, removedIds, checkpoint);
+            }
+
+            if (upserted.isEmpty() && removedIds.isEmpty()) {
+                return null;
+            }
+            return new RecipeChanges(upserted, removedIds, false);
+        }
+
+        // Only server timestamps move the checkpoint; a numeric updatedAt from an old client
+        // clock could be far ahead and would hide real server writes
+        private long maxServerUpdatedAt(List<DocumentSnapshot> documents) {
+            long max = 0;
+            for (DocumentSnapshot document : documents) {
+                max = Math.max(max, RecipeCodec.serverUpdatedAt(document));
+            }
+            return max;
+        }
+    }
+}
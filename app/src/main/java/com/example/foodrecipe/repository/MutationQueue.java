@@ -0,0 +1,357 @@
+package com.example.foodrecipe.repository;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.foodrecipe.database.AppDatabase;
+import com.example.foodrecipe.database.MutationDao;
+import com.example.foodrecipe.database.MutationEntity;
+import com.example.foodrecipe.database.RecipeDao;
+import com.example.foodrecipe.util.AppExecutors;
+import com.example.foodrecipe.util.FirebaseHelper;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent log of small user writes: favorites, ingredients, dietary preferences,
+ * profile fields and recipe notes.
+ * A change is applied to the cached model right away and recorded in the
+ * pending_mutations table, so the UI never waits for the network and nothing is lost
+ * offline or when the process dies. Changes to the same key coalesce into one row.
+ * Pending rows are flushed shortly after the last change in WriteBatches, with all
+ * changes to one user document merged into a single update, and removed once Firestore
+ * acknowledges them; from then on the server copy is authoritative.
+ * A change the server rejects is dropped, which reverts it in the UI.
+ * Every change returns a Task that completes when it, or a newer change to the same
+ * key, has been acknowledged, and fails if it is rejected.
+ */
+public class MutationQueue {
+    private static final String TAG = "MutationQueue";
+
+    // Wait this long after a change before flushing, so bursts of taps share a batch
+    private static final long FLUSH_DELAY_MS = 300;
+    // Firestore allows at most 500 writes per batch
+    private static final int MAX_BATCH_SIZE = 500;
+
+    // Retry delays double from the base up to the cap
+    private static final long BASE_RETRY_DELAY_MS = 5_000;
+    private static final long MAX_RETRY_DELAY_MS = 15 * 60_000;
+
+    // Singleton instance
+    private static MutationQueue instance;
+
+    private final MutationDao mutationDao;
+    private final RecipeDao recipeDao;
+    private final FirebaseHelper firebaseHelper;
+    private final AppExecutors executors;
+    private final UserSession userSession;
+    private final Handler flushHandler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable;
+
+    // Latest unacknowledged change per key, applied on top of the server copy
+    private final Map<String, MutationEntity> pending = new ConcurrentHashMap<>();
+    // Completions of changes made in this process, by key; guarded by itself
+    private final Map<String, List<TaskCompletionSource<Void>>> waiters = new HashMap<>();
+
+    // Rows in a batch that has not completed yet; disk executor only
+    private final Set<Long> sentIds = new HashSet<>();
+    // Drops to 1 after a rejected batch so the bad change can be found; disk executor only
+    private int batchSize = MAX_BATCH_SIZE;
+    private int failures;
+
+    private MutationQueue(Context context) {
+        AppDatabase database = AppDatabase.getInstance(context);
+        mutationDao = database.mutationDao();
+        recipeDao = database.recipeDao();
+        firebaseHelper = FirebaseHelper.getInstance();
+        executors = AppExecutors.getInstance();
+        userSession = UserSession.getInstance();
+        flushRunnable = () -> executors.diskIO().execute(this::flush);
+    }
+
+    public static synchronized MutationQueue getInstance(Context context) {
+        if (instance == null) {
+            instance = new MutationQueue(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Add a recipe to, or remove it from, the user's favorites
+     */
+    public Task<Void> setFavorite(String userId, String recipeId, boolean favorite) {
+        return enqueue(MutationEntity.favorite(userId, recipeId, favorite));
+    }
+
+    /**
+     * Add an ingredient to, or remove it from, one category of the user's ingredients
+     */
+    public Task<Void> setUserIngredient(String userId, String category, String ingredient, boolean add) {
+        return enqueue(MutationEntity.ingredient(userId, category, ingredient, add));
+    }
+
+    /**
+     * Add a dietary preference to, or remove it from, the user's preferences
+     */
+    public Task<Void> setDietaryPreference(String userId, String preference, boolean add) {
+        return enqueue(MutationEntity.dietaryPreference(userId, preference, add));
+    }
+
+    /**
+     * Set a text field of the user's document. Changes to the same field coalesce.
+     */
+    public Task<Void> setUserField(String userId, String field, String value) {
+        return enqueue(MutationEntity.userField(userId, field, value));
+    }
+
+    /**
+     * Set a boolean field of the user's document. Changes to the same field coalesce.
+     */
+    public Task<Void> setUserFlag(String userId, String field, boolean enabled) {
+        return enqueue(MutationEntity.userFlag(userId, field, enabled));
+    }
+
+    /**
+     * Replace the notes of a recipe. The Room cache is updated before the write is sent.
+     */
+    public Task<Void> setRecipeNotes(String recipeId, String notes) {
+        return enqueue(MutationEntity.notes(recipeId, notes));
+    }
+
+    /**
+     * Show and flush changes left over from an earlier process
+     */
+    public void resume() {
+        executors.diskIO().execute(() -> {
+            for (MutationEntity mutation : mutationDao.getMutations()) {
+                pending.putIfAbsent(mutation.getMutationKey(), mutation);
+            }
+            publishPending();
+            flush();
+        });
+    }
+
+    private Task<Void> enqueue(MutationEntity mutation) {
+        TaskCompletionSource<Void> completion = new TaskCompletionSource<>();
+        synchronized (waiters) {
+            List<TaskCompletionSource<Void>> keyWaiters = waiters.get(mutation.getMutationKey());
+            if (keyWaiters == null) {
+                keyWaiters = new ArrayList<>();
+                waiters.put(mutation.getMutationKey(), keyWaiters);
+            }
+            keyWaiters.add(completion);
+        }
+
+        // Optimistic: visible before anything touches the disk or the network
+        pending.put(mutation.getMutationKey(), mutation);
+        publishPending();
+
+        executors.diskIO().execute(() -> {
+            mutation.setId(mutationDao.putMutation(mutation));
+            if (MutationEntity.TYPE_NOTES.equals(mutation.getType())) {
+                recipeDao.updateNotes(mutation.getRecipeId(), mutation.getValue());
+            }
+            flushHandler.removeCallbacks(flushRunnable);
+            flushHandler.postDelayed(flushRunnable, FLUSH_DELAY_MS);
+        });
+        return completion.getTask();
+    }
+
+    private void publishPending() {
+        userSession.setPendingMutations(new ArrayList<>(pending.values()));
+    }
+
+    // Disk executor only
+    private void flush() {
+        List<MutationEntity> batch = new ArrayList<>();
+        for (MutationEntity mutation : mutationDao.getMutations()) {
+            if (!sentIds.contains(mutation.getId())) {
+                batch.add(mutation);
+            }
+            if (batch.size() == batchSize) {
+                // Batches commit in order, so the rest can go out right behind this one
+                send(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private void send(List<MutationEntity> batch) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (MutationEntity mutation : batch) {
+            ids.add(mutation.getId());
+        }
+        sentIds.addAll(ids);
+        WriteBatch writeBatch = firebaseHelper.newBatch();
+        addToBatch(writeBatch, batch);
+
+        writeBatch.commit()
+                .addOnSuccessListener(executors.diskIO(), aVoid -> {
+                    sentIds.removeAll(ids);
+                    failures = 0;
+                    if (sentIds.isEmpty()) {
+                        batchSize = MAX_BATCH_SIZE;
+                    }
+                    // A newer change to the same key has its own row and stays pending
+                    mutationDao.deleteMutations(ids);
+                    dropFromPending(batch, null);
+                })
+                .addOnFailureListener(executors.diskIO(), e -> {
+                    sentIds.removeAll(ids);
+                    if (!isRejected(e)) {
+                        failures++;
+                        long delay = Math.min(MAX_RETRY_DELAY_MS, BASE_RETRY_DELAY_MS << Math.min(failures - 1, 20));
+                        Log.e(TAG, "Writing " + batch.size() + " changes failed, retrying in " + delay + " ms", e);
+                        flushHandler.removeCallbacks(flushRunnable);
+                        flushHandler.postDelayed(flushRunnable, delay);
+                    } else if (batch.size() > 1) {
+                        // One of the changes is bad; send them one at a time to find it
+                        Log.w(TAG, "Batch of " + batch.size() + " changes rejected, retrying one by one", e);
+                        batchSize = 1;
+                        flush();
+                    } else {
+                        Log.e(TAG, "Change " + batch.get(0).getMutationKey() + " rejected, dropping it", e);
+                        mutationDao.deleteMutations(ids);
+                        dropFromPending(batch, e);
+                    }
+                });
+    }
+
+    private void addToBatch(WriteBatch writeBatch, List<MutationEntity> batch) {
+        // Array changes per user document, so each document gets one update for all of them
+        Map<String, Map<FieldPath, List<String>>> added = new LinkedHashMap<>();
+        Map<String, Map<FieldPath, List<String>>> removed = new LinkedHashMap<>();
+        // Field values per user document, likewise sent as one update
+        Map<String, Map<String, Object>> fields = new LinkedHashMap<>();
+
+        for (MutationEntity mutation : batch) {
+            switch (mutation.getType()) {
+                case MutationEntity.TYPE_FAVORITE:
+                    elements(mutation.isAdded() ? added : removed, mutation.getUserId(),
+                            FieldPath.of("favoriteRecipes")).add(mutation.getRecipeId());
+                    break;
+                case MutationEntity.TYPE_INGREDIENT:
+                    // FieldPath keeps categories with dots or spaces as a single map key
+                    elements(mutation.isAdded() ? added : removed, mutation.getUserId(),
+                            FieldPath.of("userIngredients", mutation.getCategory())).add(mutation.getValue());
+                    break;
+                case MutationEntity.TYPE_DIETARY_PREFERENCE:
+                    elements(mutation.isAdded() ? added : removed, mutation.getUserId(),
+                            FieldPath.of("dietaryPreferences")).add(mutation.getValue());
+                    break;
+                case MutationEntity.TYPE_USER_FIELD:
+                    userFields(fields, mutation.getUserId()).put(mutation.getCategory(), mutation.getValue());
+                    break;
+                case MutationEntity.TYPE_USER_FLAG:
+                    userFields(fields, mutation.getUserId()).put(mutation.getCategory(), mutation.isAdded());
+                    break;
+                case MutationEntity.TYPE_NOTES:
+                    firebaseHelper.addRecipeNotesUpdate(writeBatch, mutation.getRecipeId(), mutation.getValue());
+                    break;
+                default:
+                    Log.w(TAG, "Unknown change type " + mutation.getType());
+            }
+        }
+
+        Set<String> userIds = new LinkedHashSet<>(added.keySet());
+        userIds.addAll(removed.keySet());
+        for (String userId : userIds) {
+            Map<FieldPath, List<String>> userAdded = added.get(userId);
+            Map<FieldPath, List<String>> userRemoved = removed.get(userId);
+            firebaseHelper.addUserArrayUpdates(writeBatch, userId,
+                    userAdded != null ? userAdded : Collections.emptyMap(),
+                    userRemoved != null ? userRemoved : Collections.emptyMap());
+        }
+        for (Map.Entry<String, Map<String, Object>> userFields : fields.entrySet()) {
+            firebaseHelper.addUserFieldUpdates(writeBatch, userFields.getKey(), userFields.getValue());
+        }
+    }
+
+    private static Map<String, Object> userFields(Map<String, Map<String, Object>> fields, String userId) {
+        Map<String, Object> values = fields.get(userId);
+        if (values == null) {
+            values = new LinkedHashMap<>();
+            fields.put(userId, values);
+        }
+        return values;
+    }
+
+    private static List<String> elements(Map<String, Map<FieldPath, List<String>>> changes, String userId,
+                                         FieldPath field) {
+        Map<FieldPath, List<String>> fields = changes.get(userId);
+        if (fields == null) {
+            fields = new LinkedHashMap<>();
+            changes.put(userId, fields);
+        }
+        List<String> elements = fields.get(field);
+        if (elements == null) {
+            elements = new ArrayList<>();
+            fields.put(field, elements);
+        }
+        return elements;
+    }
+
+    /**
+     * Forget acknowledged or rejected changes and complete their tasks, with the error if
+     * rejected. A key a newer change has replaced stays pending, and so do its waiters.
+     */
+    private void dropFromPending(List<MutationEntity> mutations, Exception error) {
+        for (MutationEntity mutation : mutations) {
+            MutationEntity current = pending.get(mutation.getMutationKey());
+            if (current == null || current.getId() != mutation.getId()) {
+                continue;
+            }
+            pending.remove(mutation.getMutationKey(), current);
+
+            List<TaskCompletionSource<Void>> keyWaiters;
+            synchronized (waiters) {
+                keyWaiters = waiters.remove(mutation.getMutationKey());
+            }
+            if (keyWaiters != null) {
+                for (TaskCompletionSource<Void> completion : keyWaiters) {
+                    if (error != null) {
+                        completion.setException(error);
+                    } else {
+                        completion.setResult(null);
+                    }
+                }
+            }
+        }
+        publishPending();
+    }
+
+    // Errors retrying will not fix, e.g. the document is gone or the rules deny the write
+    private static boolean isRejected(Exception e) {
+        if (!(e instanceof FirebaseFirestoreException)) {
+            return false;
+        }
+        switch (((FirebaseFirestoreException) e).getCode()) {
+            case PERMISSION_DENIED:
+            case NOT_FOUND:
+            case INVALID_ARGUMENT:
+            case FAILED_PRECONDITION:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.foodrecipe.repository;
+
+import com.example.foodrecipe.model.Recipe;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One batch of changes to the recipes collection, as applied by {@link AllRecipesLiveData}
+ * or seen by the listeners of a {@link RecipePager}.
+ * A full batch carries every recipe in the collection, so anything missing from it was deleted.
+ */
+class RecipeChanges {
+    private final List<Recipe> upserted;
+    private final Set<String> removedIds;
+    private final boolean full;
+
+    RecipeChanges(List<Recipe> upserted, Set<String> removedIds, boolean full) {
+        this.upserted = Collections.unmodifiableList(upserted);
+        this.removedIds = Collections.unmodifiableSet(removedIds);
+        this.full = full;
+    }
+
+    /**
+     * Recipes that were added or modified
+     */
+    List<Recipe> getUpserted() {
+        return upserted;
+    }
+
+    /**
+     * Ids of recipes that were deleted
+     */
+    Set<String> getRemovedIds() {
+        return removedIds;
+    }
+
+    /**
+     * True if the batch is the whole collection rather than a delta
+     */
+    boolean isFull() {
+        return full;
+    }
+}
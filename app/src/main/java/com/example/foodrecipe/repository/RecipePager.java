@@ -0,0 +1,322 @@
+package com.example.foodrecipe.repository;
+
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.foodrecipe.database.RecipeDao;
+import com.example.foodrecipe.database.RecipeWithIngredients;
+import com.example.foodrecipe.model.Recipe;
+import com.example.foodrecipe.search.RecipeIndexes;
+import com.example.foodrecipe.util.AppExecutors;
+import com.example.foodrecipe.util.FirebaseHelper;
+import com.example.foodrecipe.util.QueryTiming;
+import com.example.foodrecipe.util.ReadPolicy;
+import com.example.foodrecipe.util.RecipeCodec;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads the recipes collection page by page, newest first, using Firestore
+ * startAfter cursors. Observers receive the accumulated list of loaded recipes.
+ * While observed, one snapshot listener per loaded page and one for recipes newer than
+ * the first page patch changes into the loaded pages, so edits, deletions and new recipes
+ * show up without reloading a page, and without syncing the rest of the collection.
+ */
+public class RecipePager {
+    private static final String TAG = "RecipePager";
+
+    private static final Comparator<Recipe> NEWEST_FIRST =
+            (a, b) -> Long.compare(b.getCreatedAt(), a.getCreatedAt());
+
+    private final FirebaseHelper firebaseHelper;
+    private final RecipeDao recipeDao;
+    private final AppExecutors executors;
+    private final RecipeIndexes recipeIndexes;
+    private final int pageSize;
+
+    private final EventListener<QuerySnapshot> rangeListener = this::onRangeChanged;
+    private final MutableLiveData<List<Recipe>> recipesLiveData = new MutableLiveData<List<Recipe>>() {
+        @Override
+        protected void onActive() {
+            listenToLoadedPages();
+        }
+
+        @Override
+        protected void onInactive() {
+            stopListening();
+        }
+    };
+    private final List<Recipe> loadedRecipes = new ArrayList<>();
+    // First and last document of every loaded page, in page order; main thread only
+    private final List<DocumentSnapshot[]> pageBounds = new ArrayList<>();
+    // Listeners on the loaded pages and on newer recipes, while observed; main thread only
+    private final List<ListenerRegistration> registrations = new ArrayList<>();
+
+    // Cursor for the next page; null before the first page is loaded
+    private DocumentSnapshot lastDocument;
+    private boolean loading;
+    private boolean endReached;
+
+    RecipePager(FirebaseHelper firebaseHelper, RecipeDao recipeDao, AppExecutors executors,
+                RecipeIndexes recipeIndexes, int pageSize) {
+        this.firebaseHelper = firebaseHelper;
+        this.recipeDao = recipeDao;
+        this.executors = executors;
+        this.recipeIndexes = recipeIndexes;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Recipes loaded so far, in page order
+     */
+    public LiveData<List<Recipe>> getRecipes() {
+        return recipesLiveData;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    public boolean hasMore() {
+        return !endReached;
+    }
+
+    /**
+     * Load the first page, or do nothing if it is already loaded.
+     * The cached first page is shown while the network request is running.
+     */
+    public void loadFirstPage() {
+        if (lastDocument != null || loading) {
+            return;
+        }
+
+        executors.diskIO().execute(() -> {
+            List<Recipe> cached = RecipeWithIngredients.toRecipes(recipeDao.getRecentRecipes(pageSize));
+            executors.mainThread().execute(() -> {
+                if (lastDocument == null && !cached.isEmpty()) {
+                    recipesLiveData.setValue(new ArrayList<>(cached));
+                }
+            });
+        });
+
+        loadPage(null);
+    }
+
+    /**
+     * Load the page after the last loaded one
+     */
+    public void loadNextPage() {
+        if (loading || endReached) {
+            return;
+        }
+        if (lastDocument == null) {
+            loadFirstPage();
+        } else {
+            loadPage(lastDocument);
+        }
+    }
+
+    /**
+     * Drop all loaded pages and start again from the newest recipe
+     */
+    public void refresh() {
+        if (loading) {
+            return;
+        }
+        lastDocument = null;
+        endReached = false;
+        loadPage(null);
+    }
+
+    private void loadPage(DocumentSnapshot startAfter) {
+        loading = true;
+
+        // The first page was already answered from Room, so it is reconciled with the server
+        // when online; offline it comes from Firestore's cache, so paging still gets a cursor.
+        // Later pages try the cache first and only go to the network if it has a short page.
+        ReadPolicy policy = startAfter == null ? ReadPolicy.DEFAULT : ReadPolicy.CACHE_FIRST;
+        firebaseHelper.getRecipesPage(startAfter, pageSize, policy)
+                .addOnSuccessListener(executors.mapping(), queryDocumentSnapshots -> {
+                    List<Recipe> page = RecipeRepository.mapRecipes("recipesPage", queryDocumentSnapshots);
+                    recipeIndexes.putAll(page);
+                    List<DocumentSnapshot> documents = queryDocumentSnapshots.getDocuments();
+                    DocumentSnapshot first = documents.isEmpty() ? null : documents.get(0);
+                    DocumentSnapshot last = documents.isEmpty() ? null : documents.get(documents.size() - 1);
+                    boolean fromCache = queryDocumentSnapshots.getMetadata().isFromCache();
+
+                    QueryTiming.deliverOnMainThread("recipesPage", () -> {
+                        loading = false;
+                        if (startAfter == null) {
+                            loadedRecipes.clear();
+                            pageBounds.clear();
+                        }
+                        loadedRecipes.addAll(page);
+                        if (last != null) {
+                            lastDocument = last;
+                            pageBounds.add(new DocumentSnapshot[]{first, last});
+                        }
+                        if (recipesLiveData.hasActiveObservers()) {
+                            if (startAfter == null) {
+                                listenToLoadedPages();
+                            } else if (last != null) {
+                                registrations.add(firebaseHelper.addRecipeRangeListener(first, last,
+                                        executors.mapping(), rangeListener));
+                            }
+                        }
+                        // Tombstones are skipped when mapping, so count documents rather than recipes.
+                        // A short page from the cache may only mean the rest was never downloaded.
+                        endReached = documents.size() < pageSize && !fromCache;
+                        recipesLiveData.setValue(new ArrayList<>(loadedRecipes));
+                    });
+
+                    executors.diskIO().execute(() -> recipeDao.upsertRecipes(page));
+                })
+                .addOnFailureListener(e -> {
+                    loading = false;
+                    Log.e(TAG, "Error loading recipe page", e);
+                    if (recipesLiveData.getValue() == null) {
+                        recipesLiveData.setValue(new ArrayList<>());
+                    }
+                });
+    }
+
+    private void listenToLoadedPages() {
+        stopListening();
+        if (pageBounds.isEmpty()) {
+            return;
+        }
+        registrations.add(firebaseHelper.addNewerRecipesListener(pageBounds.get(0)[0],
+                executors.mapping(), rangeListener));
+        for (DocumentSnapshot[] bounds : pageBounds) {
+            registrations.add(firebaseHelper.addRecipeRangeListener(bounds[0], bounds[1],
+                    executors.mapping(), rangeListener));
+        }
+    }
+
+    private void stopListening() {
+        for (ListenerRegistration registration : registrations) {
+            registration.remove();
+        }
+        registrations.clear();
+    }
+
+    /**
+     * Map the changes of one listener, keep the indexes and Room current, and patch the
+     * loaded pages on the main thread. Mapping executor only.
+     */
+    private void onRangeChanged(QuerySnapshot snapshot, FirebaseFirestoreException error) {
+        if (error != null) {
+            Log.e(TAG, "Error listening for loaded recipes", error);
+            return;
+        }
+
+        List<Recipe> upserted = new ArrayList<>();
+        Set<String> removedIds = new HashSet<>();
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            Recipe recipe = RecipeCodec.fromSnapshot(change.getDocument());
+            if (change.getType() == DocumentChange.Type.REMOVED || recipe == null || recipe.isDeleted()) {
+                removedIds.add(change.getDocument().getId());
+            } else {
+                upserted.add(recipe);
+            }
+        }
+        if (upserted.isEmpty() && removedIds.isEmpty()) {
+            return;
+        }
+
+        recipeIndexes.putAll(upserted);
+        for (String recipeId : removedIds) {
+            recipeIndexes.remove(recipeId);
+        }
+        RecipeChanges changes = new RecipeChanges(upserted, removedIds, false);
+        executors.mainThread().execute(() -> applyChanges(changes));
+        executors.diskIO().execute(() -> recipeDao.applyRecipeChanges(upserted, removedIds, 0));
+    }
+
+    /**
+     * Patch a batch of changes into the loaded pages. Recipes created after the oldest
+     * loaded one are inserted in createdAt order; older ones arrive with their page.
+     * Runs on the main thread, so it is one linear pass plus a sort of the new recipes.
+     */
+    private void applyChanges(RecipeChanges changes) {
+        if (lastDocument == null || loadedRecipes.isEmpty()) {
+            return;
+        }
+
+        Map<String, Recipe> upserted = new HashMap<>();
+        for (Recipe recipe : changes.getUpserted()) {
+            upserted.put(recipe.getId(), recipe);
+        }
+
+        // Replace modified recipes and drop deleted ones
+        boolean changed = false;
+        List<Recipe> kept = new ArrayList<>(loadedRecipes.size());
+        for (Recipe recipe : loadedRecipes) {
+            Recipe updated = upserted.remove(recipe.getId());
+            if (updated != null) {
+                kept.add(updated);
+                changed = true;
+            } else if (changes.getRemovedIds().contains(recipe.getId()) || changes.isFull()) {
+                changed = true;
+            } else {
+                kept.add(recipe);
+            }
+        }
+
+        // What is left in upserted was not loaded yet
+        long oldestLoaded = kept.isEmpty() ? Long.MAX_VALUE : kept.get(kept.size() - 1).getCreatedAt();
+        List<Recipe> added = new ArrayList<>();
+        for (Recipe recipe : upserted.values()) {
+            if (endReached || recipe.getCreatedAt() > oldestLoaded) {
+                added.add(recipe);
+            }
+        }
+
+        if (!added.isEmpty()) {
+            Collections.sort(added, NEWEST_FIRST);
+            kept = mergeNewestFirst(kept, added);
+            changed = true;
+        }
+
+        if (changed) {
+            loadedRecipes.clear();
+            loadedRecipes.addAll(kept);
+            recipesLiveData.setValue(new ArrayList<>(loadedRecipes));
+        }
+    }
+
+    // Merge two newest-first lists; an added recipe goes after loaded ones created at the same time
+    private static List<Recipe> mergeNewestFirst(List<Recipe> loaded, List<Recipe> added) {
+        List<Recipe> merged = new ArrayList<>(loaded.size() + added.size());
+        int i = 0;
+        int j = 0;
+        while (i < loaded.size() || j < added.size()) {
+            if (j == added.size()
+                    || (i < loaded.size() && loaded.get(i).getCreatedAt() >= added.get(j).getCreatedAt())) {
+                merged.add(loaded.get(i++));
+            } else {
+                merged.add(added.get(j++));
+            }
+        }
+        return merged;
+    }
+}
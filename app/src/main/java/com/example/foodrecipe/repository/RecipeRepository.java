@@ -1,53 +1,106 @@
 package com.example.foodrecipe.repository;
 
+import android.content.Context;
 import android.net.Uri;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.example.foodrecipe.database.AppDatabase;
+import com.example.foodrecipe.database.RecipeDao;
+import com.example.foodrecipe.database.RecipeWithIngredients;
 import com.example.foodrecipe.model.Recipe;
+import com.example.foodrecipe.search.RecipeFilterIndex;
+import com.example.foodrecipe.search.RecipeIndexes;
+import com.example.foodrecipe.search.RecipeQuery;
+import com.example.foodrecipe.search.RecipeSearchEngine;
+import com.example.foodrecipe.util.AppExecutors;
 import com.example.foodrecipe.util.FirebaseHelper;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
-import com.google.firebase.storage.UploadTask;
+import com.example.foodrecipe.util.QueryTiming;
+import com.example.foodrecipe.util.ReadPolicy;
+import com.example.foodrecipe.util.RecipeCodec;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Repository for managing Recipe data.
+ * Reads are answered from the local Room cache, or Firestore's own cache, first and
+ * refreshed from the server.
  */
 public class RecipeRepository {
     private static final String TAG = "RecipeRepository";
     
     private final FirebaseHelper firebaseHelper;
+    private final RecipeDao recipeDao;
+    private final AppExecutors executors;
+    private final RecipeIndexes recipeIndexes;
+    private final AllRecipesLiveData allRecipesLiveData;
+    private final UploadQueue uploadQueue;
+    private final MutationQueue mutationQueue;
     
-    public RecipeRepository() {
+    // Singleton instance, so every screen shares the same recipe stream
+    private static RecipeRepository instance;
+    
+    private RecipeRepository(Context context) {
         firebaseHelper = FirebaseHelper.getInstance();
+        recipeDao = AppDatabase.getInstance(context).recipeDao();
+        executors = AppExecutors.getInstance();
+        recipeIndexes = new RecipeIndexes();
+        allRecipesLiveData = new AllRecipesLiveData(firebaseHelper, recipeDao, executors, recipeIndexes);
+        uploadQueue = UploadQueue.getInstance(context);
+        mutationQueue = MutationQueue.getInstance(context);
+    }
+    
+    public static synchronized RecipeRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new RecipeRepository(context.getApplicationContext());
+        }
+        return instance;
     }
     
     /**
-     * Get all recipes
+     * Get all recipes. Every caller shares one live stream backed by a single snapshot listener.
      */
     public LiveData<List<Recipe>> getAllRecipes() {
+        return allRecipesLiveData;
+    }
+    
+    /**
+     * Make sure the shared recipe stream is listening, e.g. after a network error
+     */
+    public void refreshAllRecipes() {
+        allRecipesLiveData.refresh();
+    }
+    
+    /**
+     * Create a pager over all recipes, newest first
+     */
+    public RecipePager createRecipePager(int pageSize) {
+        return new RecipePager(firebaseHelper, recipeDao, executors, recipeIndexes, pageSize);
+    }
+    
+    /**
+     * Suggest cached recipes that use the given ingredients, best matches first
+     */
+    public LiveData<List<Recipe>> suggestRecipes(Collection<String> ingredients, int limit) {
         MutableLiveData<List<Recipe>> recipesLiveData = new MutableLiveData<>();
+        List<String> query = new ArrayList<>(ingredients);
+        
+        executors.computation().execute(() ->
+                recipesLiveData.postValue(recipeIndexes.getIngredientIndex().suggest(query, limit)));
         
-        firebaseHelper.getAllRecipes()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<Recipe> recipes = new ArrayList<>();
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Recipe recipe = document.toObject(Recipe.class);
-                        recipe.setId(document.getId());
-                        recipes.add(recipe);
-                    }
-                    recipesLiveData.setValue(recipes);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error getting recipes", e);
-                    recipesLiveData.setValue(new ArrayList<>());
-                });
-                
         return recipesLiveData;
     }
     
@@ -57,21 +110,11 @@ public class RecipeRepository {
     public LiveData<List<Recipe>> getRecipesByCategory(String category) {
         MutableLiveData<List<Recipe>> recipesLiveData = new MutableLiveData<>();
         
-        firebaseHelper.getRecipesByCategory(category)
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<Recipe> recipes = new ArrayList<>();
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Recipe recipe = document.toObject(Recipe.class);
-                        recipe.setId(document.getId());
-                        recipes.add(recipe);
-                    }
-                    recipesLiveData.setValue(recipes);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error getting recipes by category", e);
-                    recipesLiveData.setValue(new ArrayList<>());
-                });
-                
+        loadCachedThenRemote(recipesLiveData,
+                () -> recipeDao.getRecipesByCategory(category),
+                policy -> firebaseHelper.getRecipesByCategory(category, policy),
+                "recipesByCategory");
+        
         return recipesLiveData;
     }
     
@@ -81,21 +124,11 @@ public class RecipeRepository {
     public LiveData<List<Recipe>> getRecipesByCookingTime(int maxMinutes) {
         MutableLiveData<List<Recipe>> recipesLiveData = new MutableLiveData<>();
         
-        firebaseHelper.getRecipesByCookingTime(maxMinutes)
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<Recipe> recipes = new ArrayList<>();
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Recipe recipe = document.toObject(Recipe.class);
-                        recipe.setId(document.getId());
-                        recipes.add(recipe);
-                    }
-                    recipesLiveData.setValue(recipes);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error getting recipes by cooking time", e);
-                    recipesLiveData.setValue(new ArrayList<>());
-                });
-                
+        loadCachedThenRemote(recipesLiveData,
+                () -> recipeDao.getRecipesByCookingTime(maxMinutes),
+                policy -> firebaseHelper.getRecipesByCookingTime(maxMinutes, policy),
+                "recipesByCookingTime");
+        
         return recipesLiveData;
     }
     
@@ -105,21 +138,11 @@ public class RecipeRepository {
     public LiveData<List<Recipe>> getRecipesByServingSize(int servingSize) {
         MutableLiveData<List<Recipe>> recipesLiveData = new MutableLiveData<>();
         
-        firebaseHelper.getRecipesByServingSize(servingSize)
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<Recipe> recipes = new ArrayList<>();
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Recipe recipe = document.toObject(Recipe.class);
-                        recipe.setId(document.getId());
-                        recipes.add(recipe);
-                    }
-                    recipesLiveData.setValue(recipes);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error getting recipes by serving size", e);
-                    recipesLiveData.setValue(new ArrayList<>());
-                });
-                
+        loadCachedThenRemote(recipesLiveData,
+                () -> recipeDao.getRecipesByServingSize(servingSize),
+                policy -> firebaseHelper.getRecipesByServingSize(servingSize, policy),
+                "recipesByServingSize");
+        
         return recipesLiveData;
     }
     
@@ -129,21 +152,61 @@ public class RecipeRepository {
     public LiveData<List<Recipe>> searchRecipesByName(String query) {
         MutableLiveData<List<Recipe>> recipesLiveData = new MutableLiveData<>();
         
-        firebaseHelper.searchRecipesByName(query)
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<Recipe> recipes = new ArrayList<>();
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Recipe recipe = document.toObject(Recipe.class);
-                        recipe.setId(document.getId());
-                        recipes.add(recipe);
-                    }
-                    recipesLiveData.setValue(recipes);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error searching recipes by name", e);
-                    recipesLiveData.setValue(new ArrayList<>());
-                });
-                
+        loadCachedThenRemote(recipesLiveData,
+                () -> recipeDao.searchRecipesByName(query),
+                policy -> firebaseHelper.searchRecipesByName(query, policy),
+                "searchRecipesByName");
+        
+        return recipesLiveData;
+    }
+    
+    /**
+     * Full-text search over the cached recipes, best matches first.
+     * Falls back to the name search until the local index has been filled.
+     */
+    public LiveData<List<Recipe>> searchRecipes(String query, int limit) {
+        RecipeSearchEngine searchEngine = recipeIndexes.getSearchEngine();
+        if (searchEngine.size() == 0) {
+            return searchRecipesByName(query);
+        }
+        
+        MutableLiveData<List<Recipe>> recipesLiveData = new MutableLiveData<>();
+        executors.computation().execute(() -> recipesLiveData.postValue(searchEngine.search(query, limit)));
+        
+        return recipesLiveData;
+    }
+    
+    /**
+     * Number of cached recipes in each category and with each tag, for filter chips.
+     * Empty until the local index has been filled.
+     */
+    public LiveData<Map<String, Integer>> getFacetCounts(List<String> categories, List<String> tags) {
+        MutableLiveData<Map<String, Integer>> countsLiveData = new MutableLiveData<>();
+        List<String> categoryKeys = new ArrayList<>(categories);
+        List<String> tagKeys = new ArrayList<>(tags);
+        
+        executors.computation().execute(() -> {
+            RecipeFilterIndex filterIndex = recipeIndexes.getFilterIndex();
+            Map<String, Integer> counts = new HashMap<>();
+            if (filterIndex.size() > 0) {
+                counts.putAll(filterIndex.categoryCounts(RecipeQuery.all(), categoryKeys));
+                counts.putAll(filterIndex.tagCounts(RecipeQuery.all(), tagKeys));
+            }
+            countsLiveData.postValue(counts);
+        });
+        
+        return countsLiveData;
+    }
+    
+    /**
+     * Filter the cached recipes with a structured query
+     */
+    public LiveData<List<Recipe>> filterRecipes(RecipeQuery query) {
+        MutableLiveData<List<Recipe>> recipesLiveData = new MutableLiveData<>();
+        
+        executors.computation().execute(() ->
+                recipesLiveData.postValue(recipeIndexes.getFilterIndex().filter(query)));
+        
         return recipesLiveData;
     }
     
@@ -153,21 +216,12 @@ public class RecipeRepository {
     public LiveData<List<Recipe>> getFavoriteRecipes(String userId) {
         MutableLiveData<List<Recipe>> recipesLiveData = new MutableLiveData<>();
         
-        firebaseHelper.getFavoriteRecipes(userId)
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<Recipe> recipes = new ArrayList<>();
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Recipe recipe = document.toObject(Recipe.class);
-                        recipe.setId(document.getId());
-                        recipes.add(recipe);
-                    }
-                    recipesLiveData.setValue(recipes);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error getting favorite recipes", e);
-                    recipesLiveData.setValue(new ArrayList<>());
-                });
-                
+        // Room does not know who favorited what, so only Firestore's cache can answer early
+        loadCachedThenRemote(recipesLiveData,
+                null,
+                policy -> firebaseHelper.getFavoriteRecipes(userId, policy),
+                "favoriteRecipes");
+        
         return recipesLiveData;
     }
     
@@ -176,47 +230,80 @@ public class RecipeRepository {
      */
     public LiveData<Recipe> getRecipeById(String recipeId) {
         MutableLiveData<Recipe> recipeLiveData = new MutableLiveData<>();
+        AtomicBoolean remoteDelivered = new AtomicBoolean(false);
+        
+        // Show the cached copy while Firestore is being asked for the latest version
+        executors.diskIO().execute(() -> {
+            RecipeWithIngredients cached = recipeDao.getRecipeById(recipeId);
+            if (cached != null) {
+                Recipe recipe = cached.toRecipe();
+                executors.mainThread().execute(() -> {
+                    if (!remoteDelivered.get()) {
+                        recipeLiveData.setValue(recipe);
+                    }
+                });
+            }
+        });
         
         firebaseHelper.getRecipe(recipeId)
-                .addOnSuccessListener(documentSnapshot -> {
+                .addOnSuccessListener(executors.mapping(), documentSnapshot -> {
+                    Recipe recipe = null;
                     if (documentSnapshot.exists()) {
-                        Recipe recipe = documentSnapshot.toObject(Recipe.class);
-                        if (recipe != null) {
-                            recipe.setId(documentSnapshot.getId());
+                        long start = QueryTiming.start();
+                        recipe = RecipeCodec.fromSnapshot(documentSnapshot);
+                        QueryTiming.logMapping("recipeById", 1, start);
+                        if (recipe != null && recipe.isDeleted()) {
+                            // A tombstone: drop the cached copy and report the recipe as gone
+                            recipe = null;
+                            recipeIndexes.remove(recipeId);
+                            executors.diskIO().execute(() ->
+                                    recipeDao.deleteRecipes(Collections.singletonList(recipeId)));
+                        } else if (recipe != null) {
+                            Recipe cachedRecipe = recipe;
+                            recipeIndexes.putAll(Collections.singletonList(recipe));
+                            executors.diskIO().execute(() ->
+                                    recipeDao.upsertRecipes(Collections.singletonList(cachedRecipe)));
                         }
-                        recipeLiveData.setValue(recipe);
-                    } else {
-                        recipeLiveData.setValue(null);
                     }
+                    Recipe result = recipe;
+                    QueryTiming.deliverOnMainThread("recipeById", () -> {
+                        remoteDelivered.set(true);
+                        recipeLiveData.setValue(result);
+                    });
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Error getting recipe by ID", e);
-                    recipeLiveData.setValue(null);
+                    // Keep showing the cached copy if there is one
+                    if (recipeLiveData.getValue() == null) {
+                        remoteDelivered.set(true);
+                        recipeLiveData.setValue(null);
+                    }
                 });
                 
         return recipeLiveData;
     }
     
     /**
-     * Add a new recipe
+     * Add a new recipe. The document id is allocated on the client, so the recipe is
+     * written with a single set() while its image, if any, uploads under the same id.
+     * The upload queue links the image with one targeted update when it finishes.
      */
-    public LiveData<String> addRecipe(Recipe recipe) {
+    public LiveData<String> addRecipe(Recipe recipe, @Nullable Uri imageUri) {
         MutableLiveData<String> recipeIdLiveData = new MutableLiveData<>();
         
+        String recipeId = firebaseHelper.newRecipeId();
+        recipe.setId(recipeId);
+        if (imageUri != null) {
+            uploadQueue.enqueueRecipeImage(recipeId, imageUri);
+        }
+        
         firebaseHelper.addRecipe(recipe)
-                .addOnSuccessListener(documentReference -> {
-                    String recipeId = documentReference.getId();
-                    recipe.setId(recipeId);
-                    // Update the recipe with the ID
-                    documentReference.set(recipe)
-                            .addOnSuccessListener(aVoid -> recipeIdLiveData.setValue(recipeId))
-                            .addOnFailureListener(e -> {
-                                Log.e(TAG, "Error updating recipe with ID", e);
-                                recipeIdLiveData.setValue(null);
-                            });
-                })
+                .addOnSuccessListener(aVoid -> recipeIdLiveData.setValue(recipeId))
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Error adding recipe", e);
+                    if (imageUri != null) {
+                        uploadQueue.cancelRecipeImage(recipeId);
+                    }
                     recipeIdLiveData.setValue(null);
                 });
                 
@@ -224,58 +311,37 @@ public class RecipeRepository {
     }
     
     /**
-     * Upload recipe image
+     * Toggle favorite recipe. Queued and applied locally right away; see {@link MutationQueue}.
      */
-    public LiveData<String> uploadRecipeImage(Uri imageUri, String recipeId) {
-        MutableLiveData<String> imageUrlLiveData = new MutableLiveData<>();
-        
-        UploadTask uploadTask = firebaseHelper.uploadRecipeImage(imageUri, recipeId);
-        uploadTask.addOnSuccessListener(taskSnapshot -> 
-            firebaseHelper.getRecipeImageUrl(recipeId)
-                .addOnSuccessListener(uri -> {
-                    String imageUrl = uri.toString();
-                    // Update recipe with image URL
-                    firebaseHelper.getRecipe(recipeId)
-                            .addOnSuccessListener(documentSnapshot -> {
-                                Recipe recipe = documentSnapshot.toObject(Recipe.class);
-                                if (recipe != null) {
-                                    recipe.setId(recipeId);
-                                    recipe.setImageUrl(imageUrl);
-                                    documentSnapshot.getReference().set(recipe)
-                                            .addOnSuccessListener(aVoid -> imageUrlLiveData.setValue(imageUrl))
-                                            .addOnFailureListener(e -> {
-                                                Log.e(TAG, "Error updating recipe with image URL", e);
-                                                imageUrlLiveData.setValue(null);
-                                            });
-                                }
-                            })
-                            .addOnFailureListener(e -> {
-                                Log.e(TAG, "Error getting recipe for image URL update", e);
-                                imageUrlLiveData.setValue(null);
-                            });
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error getting image download URL", e);
-                    imageUrlLiveData.setValue(null);
-                })
-        ).addOnFailureListener(e -> {
-            Log.e(TAG, "Error uploading recipe image", e);
-            imageUrlLiveData.setValue(null);
-        });
-        
-        return imageUrlLiveData;
+    public LiveData<Boolean> toggleFavoriteRecipe(String userId, String recipeId, boolean isFavorite) {
+        MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
+        mutationQueue.setFavorite(userId, recipeId, isFavorite)
+                .addOnFailureListener(e -> Log.e(TAG, "Error toggling favorite recipe", e));
+        resultLiveData.setValue(true);
+        return resultLiveData;
     }
     
     /**
-     * Toggle favorite recipe
+     * Update recipe notes. Queued and applied to the cache right away; see {@link MutationQueue}.
      */
-    public LiveData<Boolean> toggleFavoriteRecipe(String userId, String recipeId, boolean isFavorite) {
+    public LiveData<Boolean> updateRecipeNotes(String recipeId, String notes) {
+        MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
+        mutationQueue.setRecipeNotes(recipeId, notes)
+                .addOnFailureListener(e -> Log.e(TAG, "Error updating recipe notes", e));
+        resultLiveData.setValue(true);
+        return resultLiveData;
+    }
+    
+    /**
+     * Delete a recipe. The shared recipe stream drops it once the tombstone is written.
+     */
+    public LiveData<Boolean> deleteRecipe(String recipeId) {
         MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
         
-        firebaseHelper.toggleFavoriteRecipe(userId, recipeId, isFavorite)
+        firebaseHelper.deleteRecipe(recipeId)
                 .addOnSuccessListener(aVoid -> resultLiveData.setValue(true))
                 .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error toggling favorite recipe", e);
+                    Log.e(TAG, "Error deleting recipe", e);
                     resultLiveData.setValue(false);
                 });
                 
@@ -283,18 +349,71 @@ public class RecipeRepository {
     }
     
     /**
-     * Update recipe notes
+     * Deliver the cached rows for a query right away, then refresh them from the server
+     * and write the fresh results back to the cache. When Room has no rows for the query,
+     * or no cacheQuery is given, Firestore's persistent cache answers in its place.
      */
-    public LiveData<Boolean> updateRecipeNotes(String recipeId, String notes) {
-        MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
+    private void loadCachedThenRemote(MutableLiveData<List<Recipe>> recipesLiveData,
+                                      @Nullable Supplier<List<RecipeWithIngredients>> cacheQuery,
+                                      Function<ReadPolicy, Task<QuerySnapshot>> remoteQuery,
+                                      String queryName) {
+        // Only touched on the main thread, so the cache can never overwrite fresher data
+        AtomicBoolean remoteDelivered = new AtomicBoolean(false);
         
-        firebaseHelper.updateRecipeNotes(recipeId, notes)
-                .addOnSuccessListener(aVoid -> resultLiveData.setValue(true))
+        executors.diskIO().execute(() -> {
+            List<Recipe> cached = cacheQuery != null
+                    ? RecipeWithIngredients.toRecipes(cacheQuery.get())
+                    : Collections.emptyList();
+            if (!cached.isEmpty()) {
+                deliverCached(recipesLiveData, cached, remoteDelivered);
+                return;
+            }
+            remoteQuery.apply(ReadPolicy.CACHE_ONLY)
+                    .addOnSuccessListener(executors.mapping(), queryDocumentSnapshots ->
+                            deliverCached(recipesLiveData, mapRecipes(queryName, queryDocumentSnapshots),
+                                    remoteDelivered));
+        });
+        
+        // The server only, so an offline device keeps the cached answer instead of a second copy of it
+        remoteQuery.apply(ReadPolicy.SERVER)
+                .addOnSuccessListener(executors.mapping(), queryDocumentSnapshots -> {
+                    List<Recipe> recipes = mapRecipes(queryName, queryDocumentSnapshots);
+                    recipeIndexes.putAll(recipes);
+                    QueryTiming.deliverOnMainThread(queryName, () -> {
+                        remoteDelivered.set(true);
+                        recipesLiveData.setValue(recipes);
+                    });
+                    
+                    executors.diskIO().execute(() -> recipeDao.upsertRecipes(recipes));
+                })
                 .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error updating recipe notes", e);
-                    resultLiveData.setValue(false);
+                    Log.e(TAG, "Error running recipe query " + queryName, e);
+                    // Keep showing cached results if we already have them
+                    if (recipesLiveData.getValue() == null) {
+                        recipesLiveData.setValue(new ArrayList<>());
+                    }
                 });
-                
-        return resultLiveData;
+    }
+    
+    private void deliverCached(MutableLiveData<List<Recipe>> recipesLiveData, List<Recipe> cached,
+                               AtomicBoolean remoteDelivered) {
+        if (cached.isEmpty()) {
+            return;
+        }
+        executors.mainThread().execute(() -> {
+            if (!remoteDelivered.get()) {
+                recipesLiveData.setValue(cached);
+            }
+        });
+    }
+    
+    /**
+     * Map a query result to recipes. Call this on the mapping executor, not the main thread.
+     */
+    static List<Recipe> mapRecipes(String queryName, QuerySnapshot queryDocumentSnapshots) {
+        long start = QueryTiming.start();
+        List<Recipe> recipes = RecipeCodec.fromQuery(queryDocumentSnapshots);
+        QueryTiming.logMapping(queryName, recipes.size(), start);
+        return recipes;
     }
 }
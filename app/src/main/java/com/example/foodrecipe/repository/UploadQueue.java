@@ -0,0 +1,317 @@
+package com.example.foodrecipe.repository;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.foodrecipe.database.AppDatabase;
+import com.example.foodrecipe.database.UploadJobDao;
+import com.example.foodrecipe.database.UploadJobEntity;
+import com.example.foodrecipe.util.AppExecutors;
+import com.example.foodrecipe.util.FirebaseHelper;
+import com.example.foodrecipe.util.FirebaseStorageHelper;
+import com.example.foodrecipe.util.ImagePreprocessor;
+import com.example.foodrecipe.util.ImageVariants;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.UploadTask;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persistent queue of recipe image uploads.
+ * Each picked image is preprocessed into its size variants, written to app storage
+ * and recorded in the upload_jobs table before anything is sent, so the upload
+ * survives the activity and the process. Uploads use Storage resumable sessions:
+ * the session URI is saved as soon as it exists, and a retry continues from the
+ * last chunk the server received. Failed uploads are retried with exponential backoff,
+ * except when storage rules deny them or the request itself is invalid; those are dropped.
+ * Once every variant of a recipe is uploaded the recipe document is updated with the URLs.
+ */
+public class UploadQueue {
+    private static final String TAG = "UploadQueue";
+
+    private static final String UPLOAD_DIR = "pending_uploads";
+    private static final String STORAGE_DIR = "recipe_images/";
+
+    // Retry delays double from the base up to the cap
+    private static final long BASE_RETRY_DELAY_MS = 5_000;
+    private static final long MAX_RETRY_DELAY_MS = 15 * 60_000;
+
+    // Singleton instance
+    private static UploadQueue instance;
+
+    private final Context context;
+    private final UploadJobDao uploadJobDao;
+    private final FirebaseHelper firebaseHelper;
+    private final FirebaseStorageHelper storageHelper;
+    private final ImagePreprocessor preprocessor;
+    private final AppExecutors executors;
+    private final Handler retryHandler = new Handler(Looper.getMainLooper());
+    private final Runnable retryRunnable = this::resume;
+
+    // Jobs with an upload in flight and recipes being linked; only touched on the disk executor
+    private final Set<Long> runningJobs = new HashSet<>();
+    private final Set<String> linkingRecipes = new HashSet<>();
+
+    private UploadQueue(Context context) {
+        this.context = context.getApplicationContext();
+        uploadJobDao = AppDatabase.getInstance(context).uploadJobDao();
+        firebaseHelper = FirebaseHelper.getInstance();
+        storageHelper = new FirebaseStorageHelper();
+        preprocessor = new ImagePreprocessor();
+        executors = AppExecutors.getInstance();
+    }
+
+    public static synchronized UploadQueue getInstance(Context context) {
+        if (instance == null) {
+            instance = new UploadQueue(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Queue the image for upload to the recipe. Returns immediately; preprocessing,
+     * upload and linking all happen in the background.
+     */
+    public void enqueueRecipeImage(String recipeId, Uri imageUri) {
+        // Decoding and encoding takes hundreds of milliseconds; only the insert needs diskIO
+        executors.images().execute(() -> {
+            Map<String, byte[]> variants;
+            try {
+                variants = ImageVariants.encode(preprocessor, context.getContentResolver(), imageUri);
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Error preprocessing image for recipe " + recipeId, e);
+                return;
+            }
+            logSavings(ImagePreprocessor.sizeOf(context.getContentResolver(), imageUri), variants);
+
+            File dir = new File(context.getFilesDir(), UPLOAD_DIR);
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                Log.e(TAG, "Cannot create upload directory " + dir);
+                return;
+            }
+
+            List<UploadJobEntity> jobs = new ArrayList<>();
+            try {
+                for (Map.Entry<String, byte[]> variant : variants.entrySet()) {
+                    String fileName = recipeId + "_" + variant.getKey() + "." + preprocessor.getFileExtension();
+                    File file = new File(dir, fileName);
+                    try (FileOutputStream out = new FileOutputStream(file)) {
+                        out.write(variant.getValue());
+                    }
+                    jobs.add(new UploadJobEntity(recipeId, variant.getKey(), file.getPath(),
+                            STORAGE_DIR + fileName, preprocessor.getMimeType()));
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Error writing image for recipe " + recipeId, e);
+                deleteFiles(jobs);
+                return;
+            }
+            executors.diskIO().execute(() -> {
+                uploadJobDao.insertJobs(jobs);
+                runPendingJobs();
+            });
+        });
+    }
+
+    /**
+     * Start every job that is due, including jobs left over from an earlier process
+     */
+    public void resume() {
+        executors.diskIO().execute(this::runPendingJobs);
+    }
+
+    /**
+     * Forget the queued image of a recipe that was never saved. An upload already in
+     * flight finishes but is no longer linked.
+     */
+    public void cancelRecipeImage(String recipeId) {
+        // Through the image executor first, so jobs still being preprocessed are inserted before the drop
+        executors.images().execute(() -> executors.diskIO().execute(() -> dropRecipe(recipeId)));
+    }
+
+    // Disk executor only
+    private void runPendingJobs() {
+        long now = System.currentTimeMillis();
+        long nextAttemptAt = Long.MAX_VALUE;
+        for (UploadJobEntity job : uploadJobDao.getPendingJobs()) {
+            if (runningJobs.contains(job.getId())) {
+                continue;
+            }
+            if (job.getNextAttemptAt() > now) {
+                nextAttemptAt = Math.min(nextAttemptAt, job.getNextAttemptAt());
+                continue;
+            }
+            startUpload(job);
+        }
+
+        // Recipes whose uploads finished but whose document update failed or was cut off
+        for (String recipeId : uploadJobDao.getCompletedRecipeIds()) {
+            linkRecipe(recipeId);
+        }
+
+        retryHandler.removeCallbacks(retryRunnable);
+        if (nextAttemptAt != Long.MAX_VALUE) {
+            retryHandler.postDelayed(retryRunnable, nextAttemptAt - now);
+        }
+    }
+
+    private void startUpload(UploadJobEntity job) {
+        File file = new File(job.getLocalPath());
+        if (!file.exists()) {
+            // Without the file this recipe's set of variants can never complete
+            Log.e(TAG, "Upload file missing, dropping uploads for recipe " + job.getRecipeId());
+            dropRecipe(job.getRecipeId());
+            return;
+        }
+
+        runningJobs.add(job.getId());
+        Uri sessionUri = job.getSessionUri() != null ? Uri.parse(job.getSessionUri()) : null;
+        UploadTask uploadTask = storageHelper.uploadFile(job.getStoragePath(), Uri.fromFile(file),
+                job.getContentType(), sessionUri);
+
+        // Save the session as soon as Storage opens it so a restart can resume
+        uploadTask.addOnProgressListener(executors.diskIO(), snapshot -> {
+            Uri session = snapshot.getUploadSessionUri();
+            if (session != null && !session.toString().equals(job.getSessionUri())) {
+                job.setSessionUri(session.toString());
+                uploadJobDao.updateJob(job);
+            }
+        });
+
+        uploadTask.continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        throw task.getException();
+                    }
+                    return storageHelper.getDownloadUrl(job.getStoragePath());
+                })
+                .addOnSuccessListener(executors.diskIO(), uri -> {
+                    runningJobs.remove(job.getId());
+                    job.setDownloadUrl(uri.toString());
+                    job.setSessionUri(null);
+                    uploadJobDao.updateJob(job);
+                    linkRecipe(job.getRecipeId());
+                })
+                .addOnFailureListener(executors.diskIO(), e -> {
+                    runningJobs.remove(job.getId());
+                    if (isPermanent(e) || !file.exists()) {
+                        // Retrying cannot help; give up on this recipe's image like a missing file
+                        Log.e(TAG, "Upload of " + job.getStoragePath() + " failed for good, dropping uploads for recipe "
+                                + job.getRecipeId(), e);
+                        dropRecipe(job.getRecipeId());
+                        runPendingJobs();
+                        return;
+                    }
+                    int attempts = job.getAttempts() + 1;
+                    long delay = Math.min(MAX_RETRY_DELAY_MS, BASE_RETRY_DELAY_MS << Math.min(attempts - 1, 20));
+                    Log.e(TAG, "Upload of " + job.getStoragePath() + " failed, attempt " + attempts
+                            + ", retrying in " + delay + " ms", e);
+                    job.setAttempts(attempts);
+                    job.setNextAttemptAt(System.currentTimeMillis() + delay);
+                    if (isSessionGone(e)) {
+                        job.setSessionUri(null);
+                    }
+                    uploadJobDao.updateJob(job);
+                    runPendingJobs();
+                });
+    }
+
+    // Disk executor only
+    private void linkRecipe(String recipeId) {
+        if (linkingRecipes.contains(recipeId)) {
+            return;
+        }
+        List<UploadJobEntity> jobs = uploadJobDao.getJobsForRecipe(recipeId);
+        Map<String, String> variantUrls = new HashMap<>();
+        for (UploadJobEntity job : jobs) {
+            if (job.getDownloadUrl() == null) {
+                return;
+            }
+            variantUrls.put(job.getVariant(), job.getDownloadUrl());
+        }
+        if (variantUrls.isEmpty()) {
+            return;
+        }
+
+        linkingRecipes.add(recipeId);
+        firebaseHelper.updateRecipeImages(recipeId, variantUrls.get(ImageVariants.HERO), variantUrls)
+                .addOnSuccessListener(executors.diskIO(), aVoid -> {
+                    linkingRecipes.remove(recipeId);
+                    Log.d(TAG, "Linked " + variantUrls.size() + " image variants to recipe " + recipeId);
+                    dropRecipe(recipeId);
+                })
+                .addOnFailureListener(executors.diskIO(), e -> {
+                    // Jobs stay in the table; the next resume tries the update again
+                    linkingRecipes.remove(recipeId);
+                    Log.e(TAG, "Error linking images to recipe " + recipeId, e);
+                });
+    }
+
+    private void dropRecipe(String recipeId) {
+        deleteFiles(uploadJobDao.getJobsForRecipe(recipeId));
+        uploadJobDao.deleteJobsForRecipe(recipeId);
+    }
+
+    private static void deleteFiles(List<UploadJobEntity> jobs) {
+        for (UploadJobEntity job : jobs) {
+            File file = new File(job.getLocalPath());
+            if (file.exists() && !file.delete()) {
+                Log.w(TAG, "Could not delete " + file);
+            }
+        }
+    }
+
+    // An expired or unknown session cannot be resumed; the next attempt starts a new one
+    private static boolean isSessionGone(Exception e) {
+        if (!(e instanceof StorageException)) {
+            return false;
+        }
+        int status = ((StorageException) e).getHttpResultCode();
+        return status == 404 || status == 410;
+    }
+
+    // Errors no retry will fix: storage rules deny the upload, the bucket is gone or the
+    // request is malformed. Timeouts and rate limits are 4xx too but pass with time.
+    private static boolean isPermanent(Exception e) {
+        if (!(e instanceof StorageException)) {
+            return false;
+        }
+        StorageException storageException = (StorageException) e;
+        switch (storageException.getErrorCode()) {
+            case StorageException.ERROR_NOT_AUTHENTICATED:
+            case StorageException.ERROR_NOT_AUTHORIZED:
+            case StorageException.ERROR_BUCKET_NOT_FOUND:
+            case StorageException.ERROR_PROJECT_NOT_FOUND:
+                return true;
+            default:
+                break;
+        }
+        int status = storageException.getHttpResultCode();
+        return status >= 400 && status < 500
+                && status != 404 && status != 408 && status != 410 && status != 429;
+    }
+
+    private static void logSavings(long originalBytes, Map<String, byte[]> variants) {
+        long uploadBytes = 0;
+        for (byte[] bytes : variants.values()) {
+            uploadBytes += bytes.length;
+        }
+        if (originalBytes > 0) {
+            Log.d(TAG, "Image preprocessed: " + originalBytes + " bytes -> " + uploadBytes
+                    + " bytes in " + variants.size() + " variants, saved "
+                    + (100 - uploadBytes * 100 / originalBytes) + "%");
+        } else {
+            Log.d(TAG, "Image preprocessed: " + uploadBytes + " bytes in " + variants.size() + " variants");
+        }
+    }
+}
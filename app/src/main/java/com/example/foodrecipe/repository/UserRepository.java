@@ -1,23 +1,31 @@
 package com.example.foodrecipe.repository;
 
+import android.content.Context;
 import android.net.Uri;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+import androidx.lifecycle.Transformations;
 
 import com.example.foodrecipe.model.Recipe;
 import com.example.foodrecipe.model.User;
 import com.example.foodrecipe.util.FirebaseHelper;
+import com.example.foodrecipe.util.ReadPolicy;
 import com.google.firebase.auth.AuthResult;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.auth.PhoneAuthCredential;
 import com.google.firebase.storage.UploadTask;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Repository for managing User data.
@@ -26,9 +34,13 @@ public class UserRepository {
     private static final String TAG = "UserRepository";
     
     private final FirebaseHelper firebaseHelper;
+    private final UserSession userSession;
+    private final MutationQueue mutationQueue;
     
-    public UserRepository() {
+    public UserRepository(Context context) {
         firebaseHelper = FirebaseHelper.getInstance();
+        userSession = UserSession.getInstance();
+        mutationQueue = MutationQueue.getInstance(context);
     }
     
     /**
@@ -44,14 +56,10 @@ public class UserRepository {
                     
                     // Update user's last login time
                     if (user != null) {
-                        firebaseHelper.getUserData(user.getUid())
-                                .addOnSuccessListener(documentSnapshot -> {
-                                    User userData = documentSnapshot.toObject(User.class);
-                                    if (userData != null) {
-                                        userData.updateLoginTime();
-                                        firebaseHelper.saveUserToFirestore(userData);
-                                    }
-                                });
+                        Map<String, Object> updates = new HashMap<>();
+                        updates.put("lastLogin", System.currentTimeMillis());
+                        firebaseHelper.updateUserData(user.getUid(), updates)
+                                .addOnFailureListener(e -> Log.e(TAG, "Error updating last login time", e));
                     }
                 })
                 .addOnFailureListener(e -> {
@@ -115,14 +123,10 @@ public class UserRepository {
                                 .addOnSuccessListener(documentSnapshot -> {
                                     if (documentSnapshot.exists()) {
                                         // Existing user - update last login
-                                        User user = documentSnapshot.toObject(User.class);
-                                        if (user != null) {
-                                            user.updateLoginTime();
-                                            firebaseHelper.saveUserToFirestore(user)
-                                                    .addOnSuccessListener(aVoid -> userLiveData.setValue(firebaseUser));
-                                        } else {
-                                            userLiveData.setValue(firebaseUser);
-                                        }
+                                        Map<String, Object> updates = new HashMap<>();
+                                        updates.put("lastLogin", System.currentTimeMillis());
+                                        firebaseHelper.updateUserData(firebaseUser.getUid(), updates)
+                                                .addOnCompleteListener(task -> userLiveData.setValue(firebaseUser));
                                     } else {
                                         // New user - create profile
                                         firebaseHelper.updateUserProfile(name, null)
@@ -175,63 +179,32 @@ public class UserRepository {
     }
     
     /**
-     * Get user data
+     * Get user data from the session cache
      */
     public LiveData<User> getUserData() {
-        MutableLiveData<User> userLiveData = new MutableLiveData<>();
-        
-        FirebaseUser currentUser = firebaseHelper.getCurrentUser();
-        if (currentUser != null) {
-            firebaseHelper.getUserData(currentUser.getUid())
-                    .addOnSuccessListener(documentSnapshot -> {
-                        User user = documentSnapshot.toObject(User.class);
-                        userLiveData.setValue(user);
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Error getting user data", e);
-                        userLiveData.setValue(null);
-                    });
-        } else {
-            userLiveData.setValue(null);
-        }
-        
-        return userLiveData;
+        return userSession.getUser();
     }
     
     /**
-     * Update user profile
+     * Update user profile. Once the auth profile is updated, the changed fields show up in
+     * the user data right away and are written in the background.
      */
     public LiveData<Boolean> updateUserProfile(String name, Uri photoUri) {
         MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
         
         firebaseHelper.updateUserProfile(name, photoUri)
                 .addOnSuccessListener(aVoid -> {
-                    // Update user in Firestore
+                    // Update only the changed fields in Firestore
                     FirebaseUser currentUser = firebaseHelper.getCurrentUser();
                     if (currentUser != null) {
-                        firebaseHelper.getUserData(currentUser.getUid())
-                                .addOnSuccessListener(documentSnapshot -> {
-                                    User user = documentSnapshot.toObject(User.class);
-                                    if (user != null) {
-                                        user.setName(name);
-                                        if (photoUri != null) {
-                                            user.setProfileImageUrl(photoUri.toString());
-                                        }
-                                        
-                                        firebaseHelper.saveUserToFirestore(user)
-                                                .addOnSuccessListener(aVoid1 -> resultLiveData.setValue(true))
-                                                .addOnFailureListener(e -> {
-                                                    Log.e(TAG, "Error updating user in Firestore", e);
-                                                    resultLiveData.setValue(false);
-                                                });
-                                    } else {
-                                        resultLiveData.setValue(false);
-                                    }
-                                })
-                                .addOnFailureListener(e -> {
-                                    Log.e(TAG, "Error getting user data for update", e);
-                                    resultLiveData.setValue(false);
-                                });
+                        mutationQueue.setUserField(currentUser.getUid(), UserSession.FIELD_NAME, name)
+                                .addOnFailureListener(e -> Log.e(TAG, "Error updating user name", e));
+                        if (photoUri != null) {
+                            mutationQueue.setUserField(currentUser.getUid(), UserSession.FIELD_PROFILE_IMAGE_URL,
+                                            photoUri.toString())
+                                    .addOnFailureListener(e -> Log.e(TAG, "Error updating profile image", e));
+                        }
+                        resultLiveData.setValue(true);
                     } else {
                         resultLiveData.setValue(false);
                     }
@@ -258,29 +231,18 @@ public class UserRepository {
                     .addOnSuccessListener(uri -> {
                         String imageUrl = uri.toString();
                         // Update user with image URL
-                        firebaseHelper.getUserData(currentUser.getUid())
-                                .addOnSuccessListener(documentSnapshot -> {
-                                    User user = documentSnapshot.toObject(User.class);
-                                    if (user != null) {
-                                        user.setProfileImageUrl(imageUrl);
-                                        firebaseHelper.saveUserToFirestore(user)
-                                                .addOnSuccessListener(aVoid -> {
-                                                    // Update user profile
-                                                    firebaseHelper.updateUserProfile(user.getName(), uri)
-                                                            .addOnSuccessListener(aVoid1 -> imageUrlLiveData.setValue(imageUrl))
-                                                            .addOnFailureListener(e -> {
-                                                                Log.e(TAG, "Error updating user profile with image", e);
-                                                                imageUrlLiveData.setValue(null);
-                                                            });
-                                                })
-                                                .addOnFailureListener(e -> {
-                                                    Log.e(TAG, "Error updating user with image URL", e);
-                                                    imageUrlLiveData.setValue(null);
-                                                });
-                                    }
+                        mutationQueue.setUserField(currentUser.getUid(), UserSession.FIELD_PROFILE_IMAGE_URL, imageUrl)
+                                .addOnSuccessListener(aVoid -> {
+                                    // Update user profile
+                                    firebaseHelper.updateUserProfile(currentUser.getDisplayName(), uri)
+                                            .addOnSuccessListener(aVoid1 -> imageUrlLiveData.setValue(imageUrl))
+                                            .addOnFailureListener(e -> {
+                                                Log.e(TAG, "Error updating user profile with image", e);
+                                                imageUrlLiveData.setValue(null);
+                                            });
                                 })
                                 .addOnFailureListener(e -> {
-                                    Log.e(TAG, "Error getting user for image URL update", e);
+                                    Log.e(TAG, "Error updating user with image URL", e);
                                     imageUrlLiveData.setValue(null);
                                 });
                     })
@@ -300,37 +262,17 @@ public class UserRepository {
     }
     
     /**
-     * Update user ingredients
+     * Update user ingredients. The change shows up in the user data right away and is
+     * written in the background; the result only reports whether it was queued.
      */
     public LiveData<Boolean> updateUserIngredients(String category, String ingredient, boolean add) {
         MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
         
         FirebaseUser currentUser = firebaseHelper.getCurrentUser();
         if (currentUser != null) {
-            firebaseHelper.getUserData(currentUser.getUid())
-                    .addOnSuccessListener(documentSnapshot -> {
-                        User user = documentSnapshot.toObject(User.class);
-                        if (user != null) {
-                            if (add) {
-                                user.addIngredient(category, ingredient);
-                            } else {
-                                user.removeIngredient(category, ingredient);
-                            }
-                            
-                            firebaseHelper.saveUserToFirestore(user)
-                                    .addOnSuccessListener(aVoid -> resultLiveData.setValue(true))
-                                    .addOnFailureListener(e -> {
-                                        Log.e(TAG, "Error updating user ingredients", e);
-                                        resultLiveData.setValue(false);
-                                    });
-                        } else {
-                            resultLiveData.setValue(false);
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Error getting user for ingredient update", e);
-                        resultLiveData.setValue(false);
-                    });
+            mutationQueue.setUserIngredient(currentUser.getUid(), category, ingredient, add)
+                    .addOnFailureListener(e -> Log.e(TAG, "Error updating user ingredients", e));
+            resultLiveData.setValue(true);
         } else {
             resultLiveData.setValue(false);
         }
@@ -339,37 +281,17 @@ public class UserRepository {
     }
     
     /**
-     * Update dietary preferences
+     * Update dietary preferences. The change shows up in the user data right away and is
+     * written in the background; the result only reports whether it was queued.
      */
     public LiveData<Boolean> updateDietaryPreference(String preference, boolean add) {
         MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
         
         FirebaseUser currentUser = firebaseHelper.getCurrentUser();
         if (currentUser != null) {
-            firebaseHelper.getUserData(currentUser.getUid())
-                    .addOnSuccessListener(documentSnapshot -> {
-                        User user = documentSnapshot.toObject(User.class);
-                        if (user != null) {
-                            if (add) {
-                                user.addDietaryPreference(preference);
-                            } else {
-                                user.removeDietaryPreference(preference);
-                            }
-                            
-                            firebaseHelper.saveUserToFirestore(user)
-                                    .addOnSuccessListener(aVoid -> resultLiveData.setValue(true))
-                                    .addOnFailureListener(e -> {
-                                        Log.e(TAG, "Error updating dietary preferences", e);
-                                        resultLiveData.setValue(false);
-                                    });
-                        } else {
-                            resultLiveData.setValue(false);
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Error getting user for dietary preference update", e);
-                        resultLiveData.setValue(false);
-                    });
+            mutationQueue.setDietaryPreference(currentUser.getUid(), preference, add)
+                    .addOnFailureListener(e -> Log.e(TAG, "Error updating dietary preferences", e));
+            resultLiveData.setValue(true);
         } else {
             resultLiveData.setValue(false);
         }
@@ -378,22 +300,17 @@ public class UserRepository {
     }
     
     /**
-     * Toggle notification settings
+     * Toggle notification settings. The change shows up in the user data right away and is
+     * written in the background; the result only reports whether it was queued.
      */
     public LiveData<Boolean> toggleNotifications(boolean enable) {
         MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
         
         FirebaseUser currentUser = firebaseHelper.getCurrentUser();
         if (currentUser != null) {
-            Map<String, Object> updates = new HashMap<>();
-            updates.put("notificationsEnabled", enable);
-            
-            firebaseHelper.updateUserData(currentUser.getUid(), updates)
-                    .addOnSuccessListener(aVoid -> resultLiveData.setValue(true))
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Error updating notification settings", e);
-                        resultLiveData.setValue(false);
-                    });
+            mutationQueue.setUserFlag(currentUser.getUid(), UserSession.FIELD_NOTIFICATIONS_ENABLED, enable)
+                    .addOnFailureListener(e -> Log.e(TAG, "Error updating notification settings", e));
+            resultLiveData.setValue(true);
         } else {
             resultLiveData.setValue(false);
         }
@@ -402,38 +319,34 @@ public class UserRepository {
     }
     
     /**
-     * Update user preferences (dietary preferences and notifications)
+     * Update user preferences (dietary preferences and notifications). The list is turned
+     * into additions and removals against the session copy rather than written whole,
+     * so it cannot overwrite preference changes still waiting in the queue. Until the
+     * session has loaded the user there is nothing to diff against, so the preferences are
+     * queued once it has; the result reports false if the user turns out to have no document.
      */
     public LiveData<Boolean> updateUserPreferences(List<String> dietaryPreferences, boolean notificationsEnabled) {
         MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
         
         FirebaseUser currentUser = firebaseHelper.getCurrentUser();
         if (currentUser != null) {
-            firebaseHelper.getUserData(currentUser.getUid())
-                    .addOnSuccessListener(documentSnapshot -> {
-                        User user = documentSnapshot.toObject(User.class);
-                        if (user != null) {
-                            // Update dietary preferences
-                            user.setDietaryPreferences(dietaryPreferences);
-                            
-                            // Update notification setting
-                            user.setNotificationsEnabled(notificationsEnabled);
-                            
-                            // Save updated user
-                            firebaseHelper.saveUserToFirestore(user)
-                                    .addOnSuccessListener(aVoid -> resultLiveData.setValue(true))
-                                    .addOnFailureListener(e -> {
-                                        Log.e(TAG, "Error updating user preferences", e);
-                                        resultLiveData.setValue(false);
-                                    });
-                        } else {
-                            resultLiveData.setValue(false);
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Error getting user for preferences update", e);
+            String uid = currentUser.getUid();
+            mutationQueue.setUserFlag(uid, UserSession.FIELD_NOTIFICATIONS_ENABLED, notificationsEnabled)
+                    .addOnFailureListener(e -> Log.e(TAG, "Error updating notification settings", e));
+            
+            LiveData<User> sessionUser = userSession.getUser();
+            sessionUser.observeForever(new Observer<User>() {
+                @Override
+                public void onChanged(User user) {
+                    sessionUser.removeObserver(this);
+                    if (user == null) {
                         resultLiveData.setValue(false);
-                    });
+                        return;
+                    }
+                    queueDietaryPreferences(uid, user, dietaryPreferences);
+                    resultLiveData.setValue(true);
+                }
+            });
         } else {
             resultLiveData.setValue(false);
         }
@@ -441,48 +354,37 @@ public class UserRepository {
         return resultLiveData;
     }
     
+    private void queueDietaryPreferences(String uid, User user, List<String> dietaryPreferences) {
+        Set<String> current = user.getDietaryPreferences() != null
+                ? new HashSet<>(user.getDietaryPreferences()) : Collections.emptySet();
+        Set<String> wanted = new HashSet<>(dietaryPreferences);
+        
+        for (String preference : wanted) {
+            if (!current.contains(preference)) {
+                mutationQueue.setDietaryPreference(uid, preference, true)
+                        .addOnFailureListener(e -> Log.e(TAG, "Error updating dietary preferences", e));
+            }
+        }
+        for (String preference : current) {
+            if (!wanted.contains(preference)) {
+                mutationQueue.setDietaryPreference(uid, preference, false)
+                        .addOnFailureListener(e -> Log.e(TAG, "Error updating dietary preferences", e));
+            }
+        }
+    }
+    
     /**
-     * Toggle favorite recipe
+     * Toggle favorite recipe. The change shows up in the user data right away and is
+     * written in the background; the result only reports whether it was queued.
      */
     public LiveData<Boolean> toggleFavoriteRecipe(String recipeId, boolean addToFavorites) {
         MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
         
         FirebaseUser currentUser = firebaseHelper.getCurrentUser();
         if (currentUser != null) {
-            firebaseHelper.getUserData(currentUser.getUid())
-                    .addOnSuccessListener(documentSnapshot -> {
-                        User user = documentSnapshot.toObject(User.class);
-                        if (user != null) {
-                            List<String> favorites = user.getFavoriteRecipes();
-                            if (favorites == null) {
-                                favorites = new ArrayList<>();
-                            }
-                            
-                            if (addToFavorites && !favorites.contains(recipeId)) {
-                                // Add to favorites
-                                favorites.add(recipeId);
-                            } else if (!addToFavorites && favorites.contains(recipeId)) {
-                                // Remove from favorites
-                                favorites.remove(recipeId);
-                            }
-                            
-                            user.setFavoriteRecipes(favorites);
-                            
-                            // Save updated user
-                            firebaseHelper.saveUserToFirestore(user)
-                                    .addOnSuccessListener(aVoid -> resultLiveData.setValue(true))
-                                    .addOnFailureListener(e -> {
-                                        Log.e(TAG, "Error updating favorites", e);
-                                        resultLiveData.setValue(false);
-                                    });
-                        } else {
-                            resultLiveData.setValue(false);
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Error getting user for favorites update", e);
-                        resultLiveData.setValue(false);
-                    });
+            mutationQueue.setFavorite(currentUser.getUid(), recipeId, addToFavorites)
+                    .addOnFailureListener(e -> Log.e(TAG, "Error updating favorites", e));
+            resultLiveData.setValue(true);
         } else {
             resultLiveData.setValue(false);
         }
@@ -494,65 +396,49 @@ public class UserRepository {
      * Check if recipe is in favorites
      */
     public LiveData<Boolean> isRecipeFavorite(String recipeId) {
-        MutableLiveData<Boolean> resultLiveData = new MutableLiveData<>();
-        
-        FirebaseUser currentUser = firebaseHelper.getCurrentUser();
-        if (currentUser != null) {
-            firebaseHelper.getUserData(currentUser.getUid())
-                    .addOnSuccessListener(documentSnapshot -> {
-                        User user = documentSnapshot.toObject(User.class);
-                        if (user != null && user.getFavoriteRecipes() != null) {
-                            resultLiveData.setValue(user.getFavoriteRecipes().contains(recipeId));
-                        } else {
-                            resultLiveData.setValue(false);
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Error checking if recipe is favorite", e);
-                        resultLiveData.setValue(false);
-                    });
-        } else {
-            resultLiveData.setValue(false);
-        }
-        
-        return resultLiveData;
+        // Answered from the session cache and kept current by its snapshot listener
+        return Transformations.map(userSession.getUser(), user -> userSession.isFavorite(recipeId));
     }
     
     /**
      * Get favorite recipes
      */
     public LiveData<List<Recipe>> getFavoriteRecipes() {
-        MutableLiveData<List<Recipe>> recipesLiveData = new MutableLiveData<>();
+        // Refetch only when the list of favorite ids actually changes
+        LiveData<List<String>> favoriteIds = Transformations.distinctUntilChanged(
+                Transformations.map(userSession.getUser(), user ->
+                        user != null && user.getFavoriteRecipes() != null
+                                ? user.getFavoriteRecipes()
+                                : Collections.emptyList()));
         
-        FirebaseUser currentUser = firebaseHelper.getCurrentUser();
-        if (currentUser != null) {
-            firebaseHelper.getUserData(currentUser.getUid())
-                    .addOnSuccessListener(documentSnapshot -> {
-                        User user = documentSnapshot.toObject(User.class);
-                        if (user != null && user.getFavoriteRecipes() != null && !user.getFavoriteRecipes().isEmpty()) {
-                            List<String> favoriteIds = user.getFavoriteRecipes();
-                            
-                            // Get recipes by IDs
-                            firebaseHelper.getRecipesByIds(favoriteIds)
-                                    .addOnSuccessListener(recipes -> {
-                                        recipesLiveData.setValue(recipes);
-                                    })
-                                    .addOnFailureListener(e -> {
-                                        Log.e(TAG, "Error getting favorite recipes", e);
-                                        recipesLiveData.setValue(new ArrayList<>());
-                                    });
-                        } else {
-                            recipesLiveData.setValue(new ArrayList<>());
+        return Transformations.switchMap(favoriteIds, ids -> {
+            MutableLiveData<List<Recipe>> recipesLiveData = new MutableLiveData<>();
+            if (ids.isEmpty()) {
+                recipesLiveData.setValue(new ArrayList<>());
+                return recipesLiveData;
+            }
+            
+            // Show the cached copies at once, then the server's
+            AtomicBoolean serverDelivered = new AtomicBoolean(false);
+            firebaseHelper.getRecipesByIds(ids, ReadPolicy.CACHE_ONLY)
+                    .addOnSuccessListener(recipes -> {
+                        if (!serverDelivered.get() && !recipes.isEmpty()) {
+                            recipesLiveData.setValue(recipes);
                         }
+                    });
+            firebaseHelper.getRecipesByIds(ids, ReadPolicy.SERVER)
+                    .addOnSuccessListener(recipes -> {
+                        serverDelivered.set(true);
+                        recipesLiveData.setValue(recipes);
                     })
                     .addOnFailureListener(e -> {
-                        Log.e(TAG, "Error getting user for favorites", e);
-                        recipesLiveData.setValue(new ArrayList<>());
+                        Log.e(TAG, "Error getting favorite recipes", e);
+                        // Keep showing cached results if we already have them
+                        if (recipesLiveData.getValue() == null) {
+                            recipesLiveData.setValue(new ArrayList<>());
+                        }
                     });
-        } else {
-            recipesLiveData.setValue(new ArrayList<>());
-        }
-        
-        return recipesLiveData;
+            return recipesLiveData;
+        });
     }
 }
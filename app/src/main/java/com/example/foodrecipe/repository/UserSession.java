@@ -0,0 +1,190 @@
+package com.example.foodrecipe.repository;
+
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.foodrecipe.database.MutationEntity;
+import com.example.foodrecipe.model.User;
+import com.example.foodrecipe.util.AppExecutors;
+import com.example.foodrecipe.util.FirebaseHelper;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory copy of the signed-in user's document for the lifetime of the session.
+ * One snapshot listener on users/{uid} keeps it current, so screens read the user
+ * and their favorites without a network call. Follows sign in and sign out.
+ * Changes still waiting in the {@link MutationQueue} are applied on top of the
+ * server copy, so they show up before Firestore has acknowledged them.
+ */
+public class UserSession {
+    private static final String TAG = "UserSession";
+
+    // User document fields that are set through the MutationQueue
+    static final String FIELD_NAME = "name";
+    static final String FIELD_PROFILE_IMAGE_URL = "profileImageUrl";
+    static final String FIELD_NOTIFICATIONS_ENABLED = "notificationsEnabled";
+
+    // Singleton instance
+    private static UserSession instance;
+
+    private final FirebaseHelper firebaseHelper;
+    private final AppExecutors executors;
+
+    // Null after sign out or when the user has no document; no value until the first snapshot
+    private final MutableLiveData<User> userLiveData = new MutableLiveData<>();
+    private volatile Set<String> favoriteIds = Collections.emptySet();
+
+    private ListenerRegistration registration;
+    private volatile String listeningUid;
+
+    // Last server copy of the user document and the changes not yet acknowledged
+    private volatile DocumentSnapshot serverSnapshot;
+    private volatile List<MutationEntity> pendingMutations = Collections.emptyList();
+
+    private UserSession() {
+        firebaseHelper = FirebaseHelper.getInstance();
+        executors = AppExecutors.getInstance();
+        // Fires once right away with the current user, then on every sign in and sign out
+        firebaseHelper.addAuthStateListener(auth -> onUserChanged(auth.getCurrentUser()));
+    }
+
+    public static synchronized UserSession getInstance() {
+        if (instance == null) {
+            instance = new UserSession();
+        }
+        return instance;
+    }
+
+    /**
+     * The signed-in user's document, updated whenever it changes
+     */
+    public LiveData<User> getUser() {
+        return userLiveData;
+    }
+
+    /**
+     * O(1) favorite check against the cached user document
+     */
+    public boolean isFavorite(String recipeId) {
+        return favoriteIds.contains(recipeId);
+    }
+
+    /**
+     * Replace the changes applied on top of the server copy
+     */
+    void setPendingMutations(List<MutationEntity> mutations) {
+        pendingMutations = mutations;
+        if (serverSnapshot != null) {
+            executors.computation().execute(this::publish);
+        }
+    }
+
+    private synchronized void onUserChanged(FirebaseUser firebaseUser) {
+        String uid = firebaseUser != null ? firebaseUser.getUid() : null;
+        if (uid != null && uid.equals(listeningUid)) {
+            return;
+        }
+
+        // Stop listening to the previous user
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        listeningUid = uid;
+        serverSnapshot = null;
+        favoriteIds = Collections.emptySet();
+
+        if (uid == null) {
+            userLiveData.postValue(null);
+            return;
+        }
+
+        registration = firebaseHelper.addUserDataListener(uid, executors.mapping(), (documentSnapshot, e) -> {
+            if (e != null) {
+                Log.e(TAG, "Error listening to user data", e);
+                return;
+            }
+            if (!uid.equals(listeningUid)) {
+                // Late event for a user that has signed out
+                return;
+            }
+
+            serverSnapshot = documentSnapshot;
+            publish();
+        });
+    }
+
+    // Synchronized so a slower, older publish cannot post after a newer one
+    private synchronized void publish() {
+        DocumentSnapshot snapshot = serverSnapshot;
+        if (snapshot == null) {
+            return;
+        }
+        User user = snapshot.toObject(User.class);
+        if (user != null) {
+            applyPending(user, snapshot.getId());
+        }
+        favoriteIds = user != null && user.getFavoriteRecipes() != null
+                ? new HashSet<>(user.getFavoriteRecipes())
+                : Collections.emptySet();
+        userLiveData.postValue(user);
+    }
+
+    private void applyPending(User user, String uid) {
+        for (MutationEntity mutation : pendingMutations) {
+            if (!uid.equals(mutation.getUserId())) {
+                continue;
+            }
+            if (MutationEntity.TYPE_FAVORITE.equals(mutation.getType())) {
+                List<String> favorites = user.getFavoriteRecipes() != null
+                        ? new ArrayList<>(user.getFavoriteRecipes()) : new ArrayList<>();
+                favorites.remove(mutation.getRecipeId());
+                if (mutation.isAdded()) {
+                    favorites.add(mutation.getRecipeId());
+                }
+                user.setFavoriteRecipes(favorites);
+            } else if (MutationEntity.TYPE_INGREDIENT.equals(mutation.getType())) {
+                Map<String, List<String>> ingredients = user.getUserIngredients() != null
+                        ? new HashMap<>(user.getUserIngredients()) : new HashMap<>();
+                List<String> category = ingredients.get(mutation.getCategory()) != null
+                        ? new ArrayList<>(ingredients.get(mutation.getCategory())) : new ArrayList<>();
+                category.remove(mutation.getValue());
+                if (mutation.isAdded()) {
+                    category.add(mutation.getValue());
+                }
+                ingredients.put(mutation.getCategory(), category);
+                user.setUserIngredients(ingredients);
+            } else if (MutationEntity.TYPE_DIETARY_PREFERENCE.equals(mutation.getType())) {
+                List<String> preferences = user.getDietaryPreferences() != null
+                        ? new ArrayList<>(user.getDietaryPreferences()) : new ArrayList<>();
+                preferences.remove(mutation.getValue());
+                if (mutation.isAdded()) {
+                    preferences.add(mutation.getValue());
+                }
+                user.setDietaryPreferences(preferences);
+            } else if (MutationEntity.TYPE_USER_FIELD.equals(mutation.getType())) {
+                if (FIELD_NAME.equals(mutation.getCategory())) {
+                    user.setName(mutation.getValue());
+                } else if (FIELD_PROFILE_IMAGE_URL.equals(mutation.getCategory())) {
+                    user.setProfileImageUrl(mutation.getValue());
+                }
+            } else if (MutationEntity.TYPE_USER_FLAG.equals(mutation.getType())) {
+                if (FIELD_NOTIFICATIONS_ENABLED.equals(mutation.getCategory())) {
+                    user.setNotificationsEnabled(mutation.isAdded());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.foodrecipe.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns facet values (tags, categories) to int ids and keeps one long[] bitset
+ * per value over recipe ordinals. Intersections are word-wise ANDs and counts for
+ * any number of values are taken in a single pass over the candidate words.
+ * Bitsets never shrink; they stay bounded because {@link RecipeFilterIndex} reuses the
+ * ordinals of removed recipes.
+ */
+class FacetIndex<K> {
+    private final Map<K, Integer> ids = new HashMap<>();
+    private final List<K> values = new ArrayList<>();
+    private final List<long[]> bits = new ArrayList<>();
+    // Length of every bitset in words
+    private int words;
+
+    /**
+     * Id of the value, assigning a new one if needed
+     */
+    int intern(K value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+            bits.add(new long[words]);
+        }
+        return id;
+    }
+
+    /**
+     * Id of the value, or -1 if no recipe ever had it
+     */
+    int idOf(K value) {
+        Integer id = ids.get(value);
+        return id != null ? id : -1;
+    }
+
+    void set(int id, int ordinal) {
+        ensureCapacity(ordinal);
+        bits.get(id)[ordinal >>> 6] |= 1L << ordinal;
+    }
+
+    void clear(int id, int ordinal) {
+        if (ordinal >>> 6 < words) {
+            bits.get(id)[ordinal >>> 6] &= ~(1L << ordinal);
+        }
+    }
+
+    /**
+     * Recipes having the value
+     */
+    BitSet get(K value) {
+        int id = idOf(value);
+        return id >= 0 ? BitSet.valueOf(bits.get(id)) : new BitSet();
+    }
+
+    /**
+     * Recipes among the candidates having every one of the values
+     */
+    BitSet matchAll(Iterable<K> required, BitSet candidates) {
+        long[] result = Arrays.copyOf(candidates.toLongArray(), words);
+        for (K value : required) {
+            int id = idOf(value);
+            if (id < 0) {
+                return new BitSet();
+            }
+            long[] valueBits = bits.get(id);
+            for (int w = 0; w < words; w++) {
+                result[w] &= valueBits[w];
+            }
+        }
+        return BitSet.valueOf(result);
+    }
+
+    /**
+     * For each value, how many of the candidates have it. Values never seen count zero.
+     */
+    int[] count(List<K> requested, BitSet candidates) {
+        int[] counts = new int[requested.size()];
+        long[][] requestedBits = new long[requested.size()][];
+        for (int k = 0; k < requested.size(); k++) {
+            int id = idOf(requested.get(k));
+            requestedBits[k] = id >= 0 ? bits.get(id) : null;
+        }
+
+        long[] candidateWords = candidates.toLongArray();
+        int limit = Math.min(words, candidateWords.length);
+        for (int w = 0; w < limit; w++) {
+            long candidateWord = candidateWords[w];
+            if (candidateWord == 0) {
+                continue;
+            }
+            for (int k = 0; k < requestedBits.length; k++) {
+                if (requestedBits[k] != null) {
+                    counts[k] += Long.bitCount(requestedBits[k][w] & candidateWord);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private void ensureCapacity(int ordinal) {
+        int needed = (ordinal >>> 6) + 1;
+        if (needed <= words) {
+            return;
+        }
+        int grown = Math.max(needed, words * 2);
+        for (int id = 0; id < bits.size(); id++) {
+            bits.set(id, Arrays.copyOf(bits.get(id), grown));
+        }
+        words = grown;
+    }
+}
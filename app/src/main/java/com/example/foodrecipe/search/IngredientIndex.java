@@ -0,0 +1,210 @@
+package com.example.foodrecipe.search;
+
+import com.example.foodrecipe.model.Recipe;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from normalized ingredient names to the recipes that use them.
+ * Answers "which recipes can I make with what I have" without scanning every recipe.
+ */
+public class IngredientIndex implements SearchIndex {
+
+    // Guarded by this; replaceAll builds a new state off the lock and swaps it in
+    private State state = new State();
+
+    @Override
+    public synchronized void putAll(Collection<Recipe> recipes) {
+        state.putAll(recipes);
+    }
+
+    @Override
+    public synchronized void remove(String recipeId) {
+        state.remove(recipeId);
+    }
+
+    @Override
+    public void replaceAll(Collection<Recipe> recipes) {
+        State fresh = new State();
+        fresh.putAll(recipes);
+        synchronized (this) {
+            state = fresh;
+        }
+    }
+
+    /**
+     * Number of recipes in the index
+     */
+    public synchronized int size() {
+        return state.ordinalById.size();
+    }
+
+    /**
+     * Number of ordinal slots, live or free; bounded by the most recipes ever indexed at once
+     */
+    synchronized int ordinalCapacity() {
+        return state.recipes.size();
+    }
+
+    /**
+     * Recipes that use at least one of the given ingredients. Recipes matching more of them
+     * come first; ties go to the recipe whose ingredient list is covered best.
+     */
+    public synchronized List<Recipe> suggest(Collection<String> ingredients, int limit) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String ingredient : ingredients) {
+            String term = normalize(ingredient);
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        if (terms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Count matched ingredients per recipe, remembering which recipes were touched
+        int[] counts = new int[state.recipes.size()];
+        PostingList touched = new PostingList();
+        for (String term : terms) {
+            PostingList posting = state.postings.get(term);
+            if (posting == null) {
+                continue;
+            }
+            for (int i = 0; i < posting.size(); i++) {
+                int ordinal = posting.get(i);
+                if (counts[ordinal]++ == 0) {
+                    touched.add(ordinal);
+                }
+            }
+        }
+
+        // Pack (matches, coverage, ordinal) into one long so a primitive sort ranks them
+        long[] ranked = new long[touched.size()];
+        for (int i = 0; i < touched.size(); i++) {
+            int ordinal = touched.get(i);
+            int recipeTerms = Math.max(1, state.termsByOrdinal.get(ordinal).length);
+            long coverage = Math.min(1023, counts[ordinal] * 1023L / recipeTerms);
+            ranked[i] = ((long) counts[ordinal] << 42) | (coverage << 32) | ordinal;
+        }
+        Arrays.sort(ranked);
+
+        List<Recipe> result = new ArrayList<>(Math.min(limit, ranked.length));
+        for (int i = ranked.length - 1; i >= 0 && result.size() < limit; i--) {
+            result.add(state.recipes.get((int) ranked[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Normalize an ingredient name so "Tomatoes " and "tomato" index to the same term
+     */
+    static String normalize(String ingredient) {
+        if (ingredient == null) {
+            return "";
+        }
+        String term = ingredient.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        // Naive plural folding, applied the same way to recipes and queries
+        if (term.length() > 4 && term.endsWith("oes")) {
+            term = term.substring(0, term.length() - 2);
+        } else if (term.length() > 4 && term.endsWith("ies")) {
+            term = term.substring(0, term.length() - 3) + "y";
+        } else if (term.length() > 3 && term.endsWith("s") && !term.endsWith("ss")) {
+            term = term.substring(0, term.length() - 1);
+        }
+        return term;
+    }
+
+    /**
+     * Index contents. A removed recipe leaves a null slot that the next new recipe reuses,
+     * so under delta sync the ordinal range stays as large as the most recipes ever held.
+     */
+    private static class State {
+        final Map<String, Integer> ordinalById = new HashMap<>();
+        final List<Recipe> recipes = new ArrayList<>();
+        final List<String[]> termsByOrdinal = new ArrayList<>();
+        final Map<String, PostingList> postings = new HashMap<>();
+        final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+
+        void putAll(Collection<Recipe> recipes) {
+            for (Recipe recipe : recipes) {
+                if (recipe != null && recipe.getId() != null) {
+                    put(recipe);
+                }
+            }
+        }
+
+        void put(Recipe recipe) {
+            Integer existing = ordinalById.get(recipe.getId());
+            int ordinal;
+            if (existing != null) {
+                ordinal = existing;
+                unlink(ordinal);
+            } else if (!freeOrdinals.isEmpty()) {
+                ordinal = freeOrdinals.pop();
+                ordinalById.put(recipe.getId(), ordinal);
+            } else {
+                ordinal = recipes.size();
+                ordinalById.put(recipe.getId(), ordinal);
+                recipes.add(null);
+                termsByOrdinal.add(null);
+            }
+
+            String[] terms = termsOf(recipe);
+            recipes.set(ordinal, recipe);
+            termsByOrdinal.set(ordinal, terms);
+            for (String term : terms) {
+                PostingList posting = postings.get(term);
+                if (posting == null) {
+                    posting = new PostingList();
+                    postings.put(term, posting);
+                }
+                posting.add(ordinal);
+            }
+        }
+
+        void remove(String recipeId) {
+            Integer ordinal = ordinalById.remove(recipeId);
+            if (ordinal != null) {
+                unlink(ordinal);
+                recipes.set(ordinal, null);
+                termsByOrdinal.set(ordinal, new String[0]);
+                freeOrdinals.push(ordinal);
+            }
+        }
+
+        private void unlink(int ordinal) {
+            for (String term : termsByOrdinal.get(ordinal)) {
+                PostingList posting = postings.get(term);
+                if (posting != null) {
+                    posting.remove(ordinal);
+                    if (posting.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+
+        private static String[] termsOf(Recipe recipe) {
+            Set<String> terms = new LinkedHashSet<>();
+            if (recipe.getIngredients() != null) {
+                for (Recipe.Ingredient ingredient : recipe.getIngredients()) {
+                    String term = ingredient != null ? normalize(ingredient.getName()) : "";
+                    if (!term.isEmpty()) {
+                        terms.add(term);
+                    }
+                }
+            }
+            return terms.toArray(new String[0]);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.foodrecipe.search;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of recipe ordinals for one index term, each with an integer weight.
+ */
+class PostingList {
+    private int[] ordinals = new int[4];
+    private int[] weights = new int[4];
+    private int size;
+
+    void add(int ordinal) {
+        add(ordinal, 1);
+    }
+
+    void add(int ordinal, int weight) {
+        if (size == ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, size * 2);
+            weights = Arrays.copyOf(weights, size * 2);
+        }
+        ordinals[size] = ordinal;
+        weights[size] = weight;
+        size++;
+    }
+
+    /**
+     * Remove one occurrence of the ordinal. Order is not preserved.
+     */
+    void remove(int ordinal) {
+        for (int i = 0; i < size; i++) {
+            if (ordinals[i] == ordinal) {
+                size--;
+                ordinals[i] = ordinals[size];
+                weights[i] = weights[size];
+                return;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int index) {
+        return ordinals[index];
+    }
+
+    int weight(int index) {
+        return weights[index];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.foodrecipe.search;
+
+import com.example.foodrecipe.model.Recipe;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Structured filter index over cached recipes.
+ * Recipes are bucketed by category, serving size and tag, and kept sorted by cooking
+ * time, so a {@link RecipeQuery} resolves to bitset unions, intersections and a
+ * binary-searched range instead of a scan over every recipe.
+ */
+public class RecipeFilterIndex implements SearchIndex {
+
+    // Guarded by this; replaceAll builds a new state off the lock and swaps it in
+    private State state = new State();
+
+    @Override
+    public synchronized void putAll(Collection<Recipe> recipes) {
+        state.putAll(recipes);
+    }
+
+    @Override
+    public synchronized void remove(String recipeId) {
+        state.remove(recipeId);
+    }
+
+    @Override
+    public void replaceAll(Collection<Recipe> recipes) {
+        State fresh = new State();
+        fresh.putAll(recipes);
+        synchronized (this) {
+            state = fresh;
+        }
+    }
+
+    /**
+     * Number of recipes in the index
+     */
+    public synchronized int size() {
+        return state.alive.cardinality();
+    }
+
+    /**
+     * Number of ordinal slots, live or free; bounded by the most recipes ever indexed at once
+     */
+    synchronized int ordinalCapacity() {
+        return state.recipes.size();
+    }
+
+    /**
+     * Recipes matching the query, in index order; callers sort as they need
+     */
+    public synchronized List<Recipe> filter(RecipeQuery query) {
+        BitSet matches = matching(query);
+
+        List<Recipe> result = new ArrayList<>(matches.cardinality());
+        for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+            result.add(state.recipes.get(ordinal));
+        }
+        return result;
+    }
+
+    /**
+     * For each category, how many recipes matching the query are in it
+     */
+    public synchronized Map<String, Integer> categoryCounts(RecipeQuery query, List<String> categories) {
+        return toMap(categories, state.categories.count(categories, matching(query)));
+    }
+
+    /**
+     * For each tag, how many recipes matching the query carry it
+     */
+    public synchronized Map<String, Integer> tagCounts(RecipeQuery query, List<String> tags) {
+        List<String> normalized = new ArrayList<>(tags.size());
+        for (String tag : tags) {
+            normalized.add(normalizeTag(tag));
+        }
+        return toMap(tags, state.tags.count(normalized, matching(query)));
+    }
+
+    private BitSet matching(RecipeQuery query) {
+        BitSet matches = query.evaluate(state);
+        matches.and(state.alive);
+        return matches;
+    }
+
+    private static Map<String, Integer> toMap(List<String> keys, int[] counts) {
+        Map<String, Integer> result = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            result.put(keys.get(i), counts[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Fold case and punctuation so "Gluten Free" and "gluten-free" are the same tag
+     */
+    static String normalizeTag(String tag) {
+        if (tag == null) {
+            return "";
+        }
+        String normalized = tag.trim().toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", "-");
+        return normalized.replaceAll("^-+|-+$", "");
+    }
+
+    /**
+     * Index contents. A removed recipe leaves a cleared slot that the next new recipe reuses,
+     * so the bitsets stay as long as the most recipes ever held rather than growing with churn.
+     */
+    static class State {
+        final Map<String, Integer> ordinalById = new HashMap<>();
+        final List<Recipe> recipes = new ArrayList<>();
+        final BitSet alive = new BitSet();
+        private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+
+        final FacetIndex<String> categories = new FacetIndex<>();
+        final FacetIndex<String> tags = new FacetIndex<>();
+        final Map<Integer, BitSet> byServingSize = new HashMap<>();
+
+        // Live ordinals sorted by cooking time, rebuilt lazily after changes
+        private int[] timeOrder = new int[0];
+        private int[] sortedTimes = new int[0];
+        private boolean timeOrderDirty;
+
+        void putAll(Collection<Recipe> recipes) {
+            for (Recipe recipe : recipes) {
+                if (recipe != null && recipe.getId() != null) {
+                    put(recipe);
+                }
+            }
+        }
+
+        void put(Recipe recipe) {
+            Integer existing = ordinalById.get(recipe.getId());
+            int ordinal;
+            if (existing != null) {
+                ordinal = existing;
+                unlink(ordinal);
+            } else if (!freeOrdinals.isEmpty()) {
+                ordinal = freeOrdinals.pop();
+                ordinalById.put(recipe.getId(), ordinal);
+            } else {
+                ordinal = recipes.size();
+                ordinalById.put(recipe.getId(), ordinal);
+                recipes.add(null);
+            }
+
+            recipes.set(ordinal, recipe);
+            alive.set(ordinal);
+            if (recipe.getCategory() != null) {
+                categories.set(categories.intern(recipe.getCategory()), ordinal);
+            }
+            bucket(byServingSize, recipe.getServingSize()).set(ordinal);
+            if (recipe.getTags() != null) {
+                for (String tag : recipe.getTags()) {
+                    tags.set(tags.intern(normalizeTag(tag)), ordinal);
+                }
+            }
+            timeOrderDirty = true;
+        }
+
+        void remove(String recipeId) {
+            Integer ordinal = ordinalById.remove(recipeId);
+            if (ordinal != null) {
+                unlink(ordinal);
+                recipes.set(ordinal, null);
+                freeOrdinals.push(ordinal);
+                timeOrderDirty = true;
+            }
+        }
+
+        private void unlink(int ordinal) {
+            Recipe recipe = recipes.get(ordinal);
+            alive.clear(ordinal);
+            if (recipe == null) {
+                return;
+            }
+            int categoryId = categories.idOf(recipe.getCategory());
+            if (categoryId >= 0) {
+                categories.clear(categoryId, ordinal);
+            }
+            BitSet servingBucket = byServingSize.get(recipe.getServingSize());
+            if (servingBucket != null) {
+                servingBucket.clear(ordinal);
+            }
+            if (recipe.getTags() != null) {
+                for (String tag : recipe.getTags()) {
+                    int tagId = tags.idOf(normalizeTag(tag));
+                    if (tagId >= 0) {
+                        tags.clear(tagId, ordinal);
+                    }
+                }
+            }
+        }
+
+        BitSet category(String category) {
+            return categories.get(category);
+        }
+
+        BitSet tag(String tag) {
+            return tags.get(normalizeTag(tag));
+        }
+
+        BitSet allTags(Collection<String> required) {
+            List<String> normalized = new ArrayList<>();
+            for (String tag : required) {
+                normalized.add(normalizeTag(tag));
+            }
+            return tags.matchAll(normalized, alive);
+        }
+
+        BitSet servingRange(int min, int max) {
+            BitSet result = new BitSet();
+            for (Map.Entry<Integer, BitSet> entry : byServingSize.entrySet()) {
+                int servings = entry.getKey();
+                if (servings >= min && servings <= max) {
+                    result.or(entry.getValue());
+                }
+            }
+            return result;
+        }
+
+        BitSet cookingTimeRange(int min, int max) {
+            ensureTimeOrder();
+            BitSet result = new BitSet();
+            for (int i = lowerBound(sortedTimes, min); i < sortedTimes.length && sortedTimes[i] <= max; i++) {
+                result.set(timeOrder[i]);
+            }
+            return result;
+        }
+
+        private void ensureTimeOrder() {
+            if (!timeOrderDirty) {
+                return;
+            }
+            // Pack (time, ordinal) so a primitive sort orders them by time
+            long[] packed = new long[alive.cardinality()];
+            int count = 0;
+            for (int ordinal = alive.nextSetBit(0); ordinal >= 0; ordinal = alive.nextSetBit(ordinal + 1)) {
+                packed[count++] = ((long) recipes.get(ordinal).getCookingTimeMinutes() << 32) | ordinal;
+            }
+            Arrays.sort(packed);
+
+            timeOrder = new int[count];
+            sortedTimes = new int[count];
+            for (int i = 0; i < count; i++) {
+                sortedTimes[i] = (int) (packed[i] >> 32);
+                timeOrder[i] = (int) packed[i];
+            }
+            timeOrderDirty = false;
+        }
+
+        // First index whose value is >= key
+        private static int lowerBound(int[] values, int key) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static <K> BitSet bucket(Map<K, BitSet> buckets, K key) {
+            BitSet bits = buckets.get(key);
+            if (bits == null) {
+                bits = new BitSet();
+                buckets.put(key, bits);
+            }
+            return bits;
+        }
+    }
+}
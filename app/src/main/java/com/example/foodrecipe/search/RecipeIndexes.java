@@ -0,0 +1,49 @@
+package com.example.foodrecipe.search;
+
+import com.example.foodrecipe.model.Recipe;
+
+import java.util.Collection;
+
+/**
+ * All client-side recipe indexes, updated together as recipes arrive.
+ */
+public class RecipeIndexes implements SearchIndex {
+
+    private final IngredientIndex ingredientIndex = new IngredientIndex();
+    private final RecipeSearchEngine searchEngine = new RecipeSearchEngine();
+    private final RecipeFilterIndex filterIndex = new RecipeFilterIndex();
+    private final SearchIndex[] indexes = {ingredientIndex, searchEngine, filterIndex};
+
+    public IngredientIndex getIngredientIndex() {
+        return ingredientIndex;
+    }
+
+    public RecipeSearchEngine getSearchEngine() {
+        return searchEngine;
+    }
+
+    public RecipeFilterIndex getFilterIndex() {
+        return filterIndex;
+    }
+
+    @Override
+    public void putAll(Collection<Recipe> recipes) {
+        for (SearchIndex index : indexes) {
+            index.putAll(recipes);
+        }
+    }
+
+    @Override
+    public void remove(String recipeId) {
+        for (SearchIndex index : indexes) {
+            index.remove(recipeId);
+        }
+    }
+
+    @Override
+    public void replaceAll(Collection<Recipe> recipes) {
+        for (SearchIndex index : indexes) {
+            index.replaceAll(recipes);
+        }
+    }
+}
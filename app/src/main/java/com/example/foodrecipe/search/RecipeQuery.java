@@ -0,0 +1,147 @@
+package com.example.foodrecipe.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable filter over cached recipes, evaluated by {@link RecipeFilterIndex}.
+ * Build leaf predicates with the static factories and combine them with
+ * {@link #and} and {@link #or}; each evaluates to a bitset over recipe ordinals.
+ */
+public abstract class RecipeQuery {
+
+    RecipeQuery() {
+    }
+
+    /**
+     * Recipes in the given category
+     */
+    public static RecipeQuery category(String category) {
+        return new RecipeQuery() {
+            @Override
+            BitSet evaluate(RecipeFilterIndex.State state) {
+                return state.category(category);
+            }
+        };
+    }
+
+    /**
+     * Recipes in any of the given categories; every recipe when the collection is empty
+     */
+    public static RecipeQuery anyCategory(Collection<String> categories) {
+        if (categories.isEmpty()) {
+            return all();
+        }
+        List<RecipeQuery> queries = new ArrayList<>();
+        for (String category : categories) {
+            queries.add(category(category));
+        }
+        return or(queries.toArray(new RecipeQuery[0]));
+    }
+
+    /**
+     * Recipes whose cooking time in minutes is within [min, max]
+     */
+    public static RecipeQuery cookingTime(int min, int max) {
+        return new RecipeQuery() {
+            @Override
+            BitSet evaluate(RecipeFilterIndex.State state) {
+                return state.cookingTimeRange(min, max);
+            }
+        };
+    }
+
+    /**
+     * Recipes whose serving size is within [min, max]
+     */
+    public static RecipeQuery servings(int min, int max) {
+        return new RecipeQuery() {
+            @Override
+            BitSet evaluate(RecipeFilterIndex.State state) {
+                return state.servingRange(min, max);
+            }
+        };
+    }
+
+    /**
+     * Recipes carrying the tag, e.g. "vegetarian" or "gluten-free". Case is ignored.
+     */
+    public static RecipeQuery tag(String tag) {
+        return new RecipeQuery() {
+            @Override
+            BitSet evaluate(RecipeFilterIndex.State state) {
+                return state.tag(tag);
+            }
+        };
+    }
+
+    /**
+     * Recipes carrying every one of the tags, e.g. all of a user's dietary preferences
+     */
+    public static RecipeQuery allTags(Collection<String> tags) {
+        List<String> required = new ArrayList<>(tags);
+        return new RecipeQuery() {
+            @Override
+            BitSet evaluate(RecipeFilterIndex.State state) {
+                return state.allTags(required);
+            }
+        };
+    }
+
+    /**
+     * Every indexed recipe
+     */
+    public static RecipeQuery all() {
+        return new RecipeQuery() {
+            @Override
+            BitSet evaluate(RecipeFilterIndex.State state) {
+                return (BitSet) state.alive.clone();
+            }
+        };
+    }
+
+    /**
+     * Recipes matching every query
+     */
+    public static RecipeQuery and(RecipeQuery... queries) {
+        List<RecipeQuery> parts = Arrays.asList(queries.clone());
+        return new RecipeQuery() {
+            @Override
+            BitSet evaluate(RecipeFilterIndex.State state) {
+                BitSet result = (BitSet) state.alive.clone();
+                for (RecipeQuery query : parts) {
+                    if (result.isEmpty()) {
+                        break;
+                    }
+                    result.and(query.evaluate(state));
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Recipes matching at least one query
+     */
+    public static RecipeQuery or(RecipeQuery... queries) {
+        List<RecipeQuery> parts = Arrays.asList(queries.clone());
+        return new RecipeQuery() {
+            @Override
+            BitSet evaluate(RecipeFilterIndex.State state) {
+                BitSet result = new BitSet();
+                for (RecipeQuery query : parts) {
+                    result.or(query.evaluate(state));
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Ordinals of the matching recipes. The returned set may be modified by the caller.
+     */
+    abstract BitSet evaluate(RecipeFilterIndex.State state);
+}
@@ -0,0 +1,394 @@
+package com.example.foodrecipe.search;
+
+import com.example.foodrecipe.model.Recipe;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Full-text search over cached recipes.
+ * Name, tags, ingredient names and description are tokenized into a trie of terms,
+ * each pointing at a weighted posting list. Every query word must match a term exactly,
+ * by prefix (the word still being typed) or within one edit (typos).
+ */
+public class RecipeSearchEngine implements SearchIndex {
+
+    // How much a term counts depending on the field it came from
+    private static final int NAME_WEIGHT = 8;
+    private static final int TAG_WEIGHT = 4;
+    private static final int INGREDIENT_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    // Score multiplier, in percent, for each kind of match
+    private static final int EXACT_MATCH = 100;
+    private static final int PREFIX_MATCH = 60;
+    private static final int FUZZY_MATCH = 40;
+
+    // Shorter words get too many false fuzzy matches
+    private static final int MIN_FUZZY_LENGTH = 4;
+    // Upper bound on prefix terms, and separately on fuzzy terms, one query word may expand to
+    static final int MAX_EXPANSIONS = 256;
+
+    // Guarded by this; replaceAll builds a new state off the lock and swaps it in
+    private State state = new State();
+
+    @Override
+    public synchronized void putAll(Collection<Recipe> recipes) {
+        state.putAll(recipes);
+    }
+
+    @Override
+    public synchronized void remove(String recipeId) {
+        state.remove(recipeId);
+    }
+
+    @Override
+    public void replaceAll(Collection<Recipe> recipes) {
+        State fresh = new State();
+        fresh.putAll(recipes);
+        synchronized (this) {
+            state = fresh;
+        }
+    }
+
+    /**
+     * Number of recipes in the index
+     */
+    public synchronized int size() {
+        return state.ordinalById.size();
+    }
+
+    /**
+     * Number of ordinal slots, live or free; bounded by the most recipes ever indexed at once
+     */
+    synchronized int ordinalCapacity() {
+        return state.recipes.size();
+    }
+
+    /**
+     * Recipes matching every word of the query, best first.
+     * The last word is also matched as a prefix so results follow the user's typing.
+     */
+    public synchronized List<Recipe> search(String query, int limit) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(Tokenizer.tokenize(query)));
+        if (words.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        int ordinalCount = state.recipes.size();
+        int[] totalScore = new int[ordinalCount];
+        int[] matchedWords = new int[ordinalCount];
+        int[] wordScore = new int[ordinalCount];
+        PostingList touched = new PostingList();
+
+        for (int w = 0; w < words.size(); w++) {
+            String word = words.get(w);
+            Map<PostingList, Integer> expansions = expand(word, w == words.size() - 1);
+
+            // Best score of this word per recipe
+            touched = new PostingList();
+            for (Map.Entry<PostingList, Integer> expansion : expansions.entrySet()) {
+                PostingList posting = expansion.getKey();
+                int multiplier = expansion.getValue();
+                for (int i = 0; i < posting.size(); i++) {
+                    int ordinal = posting.get(i);
+                    // Only recipes that matched every earlier word are still candidates
+                    if (matchedWords[ordinal] != w) {
+                        continue;
+                    }
+                    if (wordScore[ordinal] == 0) {
+                        touched.add(ordinal);
+                    }
+                    wordScore[ordinal] = Math.max(wordScore[ordinal], posting.weight(i) * multiplier);
+                }
+            }
+
+            for (int i = 0; i < touched.size(); i++) {
+                int ordinal = touched.get(i);
+                matchedWords[ordinal]++;
+                totalScore[ordinal] += wordScore[ordinal];
+                wordScore[ordinal] = 0;
+            }
+            if (touched.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+
+        // The last word's candidates are exactly the recipes that matched every word
+        long[] ranked = new long[touched.size()];
+        for (int i = 0; i < touched.size(); i++) {
+            int ordinal = touched.get(i);
+            ranked[i] = ((long) totalScore[ordinal] << 32) | ordinal;
+        }
+        Arrays.sort(ranked);
+
+        List<Recipe> result = new ArrayList<>(Math.min(limit, ranked.length));
+        for (int i = ranked.length - 1; i >= 0 && result.size() < limit; i--) {
+            result.add(state.recipes.get((int) ranked[i]));
+        }
+        return result;
+    }
+
+    // Posting lists a query word matches, with the best multiplier for each
+    private Map<PostingList, Integer> expand(String word, boolean prefix) {
+        Map<PostingList, Integer> expansions = new IdentityHashMap<>();
+
+        TrieNode node = state.root.find(word);
+        if (node != null && node.hasPostings()) {
+            expansions.put(node.postings, EXACT_MATCH);
+        }
+        if (prefix && node != null) {
+            // Short prefixes can match thousands of terms; keep the best rather than the first
+            PriorityQueue<Expansion> best = new PriorityQueue<>();
+            collectPrefix(node, 1, best);
+            for (Expansion expansion : best) {
+                expansions.putIfAbsent(expansion.postings, PREFIX_MATCH);
+            }
+        }
+        if (word.length() >= MIN_FUZZY_LENGTH) {
+            // Own budget, so a prefix that used up its expansions still gets typo matches
+            Map<PostingList, Integer> fuzzy = new IdentityHashMap<>();
+            int[] firstRow = new int[word.length() + 1];
+            for (int i = 0; i < firstRow.length; i++) {
+                firstRow[i] = i;
+            }
+            for (int i = 0; i < state.root.size; i++) {
+                collectFuzzy(state.root.children[i], state.root.keys[i], word, firstRow, fuzzy);
+            }
+            for (PostingList posting : fuzzy.keySet()) {
+                expansions.putIfAbsent(posting, FUZZY_MATCH);
+            }
+        }
+        return expansions;
+    }
+
+    // Keeps the MAX_EXPANSIONS terms below the node that rank highest
+    private void collectPrefix(TrieNode node, int depth, PriorityQueue<Expansion> best) {
+        for (int i = 0; i < node.size; i++) {
+            TrieNode child = node.children[i];
+            if (child.hasPostings()) {
+                Expansion expansion = new Expansion(child.postings, depth);
+                if (best.size() < MAX_EXPANSIONS) {
+                    best.add(expansion);
+                } else if (expansion.compareTo(best.peek()) > 0) {
+                    best.poll();
+                    best.add(expansion);
+                }
+            }
+            collectPrefix(child, depth + 1, best);
+        }
+    }
+
+    // Walks the trie with one Levenshtein row per node, pruning once every cell exceeds one edit
+    private void collectFuzzy(TrieNode node, char key, String word, int[] previousRow,
+                              Map<PostingList, Integer> expansions) {
+        if (expansions.size() >= MAX_EXPANSIONS) {
+            return;
+        }
+
+        int[] row = new int[previousRow.length];
+        row[0] = previousRow[0] + 1;
+        int rowMin = row[0];
+        for (int j = 1; j < row.length; j++) {
+            int insert = row[j - 1] + 1;
+            int delete = previousRow[j] + 1;
+            int replace = previousRow[j - 1] + (word.charAt(j - 1) == key ? 0 : 1);
+            row[j] = Math.min(insert, Math.min(delete, replace));
+            rowMin = Math.min(rowMin, row[j]);
+        }
+
+        if (row[row.length - 1] <= 1 && node.hasPostings() && !expansions.containsKey(node.postings)) {
+            expansions.put(node.postings, FUZZY_MATCH);
+        }
+        if (rowMin <= 1) {
+            for (int i = 0; i < node.size; i++) {
+                collectFuzzy(node.children[i], node.keys[i], word, row, expansions);
+            }
+        }
+    }
+
+    /**
+     * A prefix expansion, ordered worst first: terms from weaker fields, then longer terms
+     * (further from what was typed), rank lower
+     */
+    private static class Expansion implements Comparable<Expansion> {
+        final PostingList postings;
+        final int maxWeight;
+        final int extraLength;
+
+        Expansion(PostingList postings, int extraLength) {
+            this.postings = postings;
+            this.extraLength = extraLength;
+            int max = 0;
+            for (int i = 0; i < postings.size(); i++) {
+                max = Math.max(max, postings.weight(i));
+            }
+            this.maxWeight = max;
+        }
+
+        @Override
+        public int compareTo(Expansion other) {
+            if (maxWeight != other.maxWeight) {
+                return Integer.compare(maxWeight, other.maxWeight);
+            }
+            return Integer.compare(other.extraLength, extraLength);
+        }
+    }
+
+    /**
+     * Trie node with children sorted by character
+     */
+    private static class TrieNode {
+        char[] keys = new char[0];
+        TrieNode[] children = new TrieNode[0];
+        int size;
+        // Recipes containing the term that ends here, or null
+        PostingList postings;
+
+        boolean hasPostings() {
+            return postings != null && !postings.isEmpty();
+        }
+
+        TrieNode find(String term) {
+            TrieNode node = this;
+            for (int i = 0; i < term.length() && node != null; i++) {
+                int index = Arrays.binarySearch(node.keys, 0, node.size, term.charAt(i));
+                node = index >= 0 ? node.children[index] : null;
+            }
+            return node;
+        }
+
+        TrieNode insert(String term) {
+            TrieNode node = this;
+            for (int i = 0; i < term.length(); i++) {
+                char key = term.charAt(i);
+                int index = Arrays.binarySearch(node.keys, 0, node.size, key);
+                if (index < 0) {
+                    index = -index - 1;
+                    node.insertChild(index, key);
+                }
+                node = node.children[index];
+            }
+            return node;
+        }
+
+        private void insertChild(int index, char key) {
+            if (size == keys.length) {
+                int capacity = Math.max(2, size * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(children, index, children, index + 1, size - index);
+            keys[index] = key;
+            children[index] = new TrieNode();
+            size++;
+        }
+    }
+
+    /**
+     * Index contents. A removed recipe leaves a null slot that the next new recipe reuses,
+     * so under delta sync the ordinal range stays as large as the most recipes ever held.
+     */
+    private static class State {
+        final Map<String, Integer> ordinalById = new HashMap<>();
+        final List<Recipe> recipes = new ArrayList<>();
+        final List<String[]> termsByOrdinal = new ArrayList<>();
+        final TrieNode root = new TrieNode();
+        final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+
+        void putAll(Collection<Recipe> recipes) {
+            for (Recipe recipe : recipes) {
+                if (recipe != null && recipe.getId() != null) {
+                    put(recipe);
+                }
+            }
+        }
+
+        void put(Recipe recipe) {
+            Integer existing = ordinalById.get(recipe.getId());
+            int ordinal;
+            if (existing != null) {
+                ordinal = existing;
+                unlink(ordinal);
+            } else if (!freeOrdinals.isEmpty()) {
+                ordinal = freeOrdinals.pop();
+                ordinalById.put(recipe.getId(), ordinal);
+            } else {
+                ordinal = recipes.size();
+                ordinalById.put(recipe.getId(), ordinal);
+                recipes.add(null);
+                termsByOrdinal.add(null);
+            }
+
+            Map<String, Integer> weights = termWeights(recipe);
+            recipes.set(ordinal, recipe);
+            termsByOrdinal.set(ordinal, weights.keySet().toArray(new String[0]));
+            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                TrieNode node = root.insert(entry.getKey());
+                if (node.postings == null) {
+                    node.postings = new PostingList();
+                }
+                node.postings.add(ordinal, entry.getValue());
+            }
+        }
+
+        void remove(String recipeId) {
+            Integer ordinal = ordinalById.remove(recipeId);
+            if (ordinal != null) {
+                unlink(ordinal);
+                recipes.set(ordinal, null);
+                termsByOrdinal.set(ordinal, new String[0]);
+                freeOrdinals.push(ordinal);
+            }
+        }
+
+        private void unlink(int ordinal) {
+            for (String term : termsByOrdinal.get(ordinal)) {
+                TrieNode node = root.find(term);
+                if (node != null && node.postings != null) {
+                    node.postings.remove(ordinal);
+                }
+            }
+        }
+
+        // Each term keeps the weight of the most important field it appears in
+        private static Map<String, Integer> termWeights(Recipe recipe) {
+            Map<String, Integer> weights = new HashMap<>();
+            addField(weights, recipe.getName(), NAME_WEIGHT);
+            if (recipe.getTags() != null) {
+                for (String tag : recipe.getTags()) {
+                    addField(weights, tag, TAG_WEIGHT);
+                }
+            }
+            if (recipe.getIngredients() != null) {
+                for (Recipe.Ingredient ingredient : recipe.getIngredients()) {
+                    if (ingredient != null) {
+                        addField(weights, ingredient.getName(), INGREDIENT_WEIGHT);
+                    }
+                }
+            }
+            addField(weights, recipe.getDescription(), DESCRIPTION_WEIGHT);
+            return weights;
+        }
+
+        private static void addField(Map<String, Integer> weights, String text, int weight) {
+            for (String token : Tokenizer.tokenize(text)) {
+                Integer current = weights.get(token);
+                if (current == null || current < weight) {
+                    weights.put(token, weight);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.foodrecipe.search;
+
+import com.example.foodrecipe.model.Recipe;
+
+import java.util.Collection;
+
+/**
+ * An in-memory index over cached recipes.
+ * Implementations are thread safe; updates come from the mapping executor while
+ * queries may run on any thread.
+ */
+public interface SearchIndex {
+
+    /**
+     * Add recipes, replacing any already indexed with the same id
+     */
+    void putAll(Collection<Recipe> recipes);
+
+    /**
+     * Remove a recipe if it is indexed
+     */
+    void remove(String recipeId);
+
+    /**
+     * Drop everything and index exactly these recipes
+     */
+    void replaceAll(Collection<Recipe> recipes);
+}
@@ -14,6 +14,7 @@ import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.foodrecipe.MainActivity;
 import com.example.foodrecipe.R;
 import com.example.foodrecipe.adapter.RecipeAdapter;
 import com.example.foodrecipe.model.Recipe;
@@ -22,6 +23,8 @@ import com.example.foodrecipe.viewmodel.RecipeViewModel;
 import com.example.foodrecipe.viewmodel.UserViewModel;
 import com.google.firebase.auth.FirebaseAuth;
 
+import java.util.ArrayList;
+
 /**
  * Fragment for displaying user's favorite recipes
  */
@@ -30,6 +33,7 @@ public class FavoritesFragment extends Fragment {
     private RecipeViewModel recipeViewModel;
     private UserViewModel userViewModel;
     private RecyclerView favoritesRecyclerView;
+    private RecipeAdapter favoritesAdapter;
     private TextView emptyStateTextView;
     
     @Nullable
@@ -54,6 +58,15 @@ public class FavoritesFragment extends Fragment {
     private void initializeViews(View view) {
         favoritesRecyclerView = view.findViewById(R.id.recycler_view_favorites);
         favoritesRecyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
+        favoritesRecyclerView.setRecycledViewPool(((MainActivity) requireActivity()).getRecipeViewPool());
+        
+        favoritesAdapter = new RecipeAdapter(new ArrayList<>(), recipe -> {
+            // Open recipe detail activity when a recipe is clicked
+            Intent intent = new Intent(requireContext(), RecipeDetailActivity.class);
+            intent.putExtra(RecipeDetailActivity.EXTRA_RECIPE_ID, recipe.getId());
+            startActivity(intent);
+        });
+        favoritesRecyclerView.setAdapter(favoritesAdapter);
         
         emptyStateTextView = view.findViewById(R.id.text_empty_state);
     }
@@ -69,15 +82,7 @@ public class FavoritesFragment extends Fragment {
                     // Show recipes
                     favoritesRecyclerView.setVisibility(View.VISIBLE);
                     emptyStateTextView.setVisibility(View.GONE);
-                    
-                    // Set adapter for favorites
-                    RecipeAdapter adapter = new RecipeAdapter(recipes, recipe -> {
-                        // Open recipe detail activity when a recipe is clicked
-                        Intent intent = new Intent(requireContext(), RecipeDetailActivity.class);
-                        intent.putExtra(RecipeDetailActivity.EXTRA_RECIPE_ID, recipe.getId());
-                        startActivity(intent);
-                    });
-                    favoritesRecyclerView.setAdapter(adapter);
+                    favoritesAdapter.updateData(recipes);
                 } else {
                     // Show empty state
                     favoritesRecyclerView.setVisibility(View.GONE);
@@ -9,17 +9,20 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.widget.NestedScrollView;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.foodrecipe.MainActivity;
 import com.example.foodrecipe.R;
 import com.example.foodrecipe.adapter.CategoryAdapter;
 import com.example.foodrecipe.adapter.FeaturedRecipeAdapter;
 import com.example.foodrecipe.adapter.RecipeAdapter;
 import com.example.foodrecipe.model.Category;
 import com.example.foodrecipe.model.Recipe;
+import com.example.foodrecipe.repository.RecipePager;
 import com.example.foodrecipe.ui.recipe.AddRecipeActivity;
 import com.example.foodrecipe.ui.recipedetail.RecipeDetailActivity;
 import com.example.foodrecipe.viewmodel.RecipeViewModel;
@@ -36,7 +39,11 @@ public class HomeFragment extends Fragment implements
         CategoryAdapter.OnCategoryClickListener,
         RecipeAdapter.OnRecipeClickListener {
     
+    // Distance from the bottom of the scroll view at which the next page is requested
+    private static final int LOAD_MORE_THRESHOLD_PX = 600;
+    
     private RecipeViewModel recipeViewModel;
+    private NestedScrollView scrollView;
     private RecyclerView featuredRecyclerView;
     private RecyclerView categoriesRecyclerView;
     private RecyclerView recentRecyclerView;
@@ -46,6 +53,9 @@ public class HomeFragment extends Fragment implements
     private CategoryAdapter categoryAdapter;
     private RecipeAdapter recentRecipeAdapter;
     
+    // True while the recent list shows a single category instead of the paged list
+    private boolean showingCategory = false;
+    
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
@@ -74,6 +84,8 @@ public class HomeFragment extends Fragment implements
     }
     
     private void initializeViews(View view) {
+        scrollView = view.findViewById(R.id.scroll_view_home);
+        
         featuredRecyclerView = view.findViewById(R.id.recycler_view_featured);
         featuredRecyclerView.setLayoutManager(
                 new LinearLayoutManager(requireContext(), LinearLayoutManager.HORIZONTAL, false));
@@ -85,8 +97,22 @@ public class HomeFragment extends Fragment implements
         recentRecyclerView = view.findViewById(R.id.recycler_view_recent);
         recentRecyclerView.setLayoutManager(
                 new LinearLayoutManager(requireContext()));
+        recentRecyclerView.setRecycledViewPool(((MainActivity) requireActivity()).getRecipeViewPool());
                 
         fabAddRecipe = view.findViewById(R.id.fab_add_recipe);
+        
+        // The recent list is laid out inside the scroll view, so page on the scroll view itself
+        scrollView.setOnScrollChangeListener((NestedScrollView.OnScrollChangeListener)
+                (v, scrollX, scrollY, oldScrollX, oldScrollY) -> {
+                    View content = v.getChildAt(0);
+                    if (content == null || scrollY <= oldScrollY || showingCategory) {
+                        return;
+                    }
+                    int distanceToBottom = content.getMeasuredHeight() - (scrollY + v.getMeasuredHeight());
+                    if (distanceToBottom <= LOAD_MORE_THRESHOLD_PX) {
+                        recipeViewModel.getRecipePager().loadNextPage();
+                    }
+                });
     }
     
     private void initializeAdapters() {
@@ -102,18 +128,21 @@ public class HomeFragment extends Fragment implements
     }
     
     private void loadData() {
-        // Load featured recipes
-        recipeViewModel.getAllRecipes().observe(getViewLifecycleOwner(), recipes -> {
+        RecipePager recipePager = recipeViewModel.getRecipePager();
+        recipePager.getRecipes().observe(getViewLifecycleOwner(), recipes -> {
             if (recipes != null && !recipes.isEmpty()) {
                 // For featured, just take the first few recipes
                 List<Recipe> featuredRecipes = recipes.size() > 5 ? 
-                        recipes.subList(0, 5) : new ArrayList<>(recipes);
+                        new ArrayList<>(recipes.subList(0, 5)) : new ArrayList<>(recipes);
                 featuredRecipeAdapter.updateData(featuredRecipes);
                 
-                // For recent, show all recipes
-                recentRecipeAdapter.updateData(recipes);
+                // For recent, show every page loaded so far
+                if (!showingCategory) {
+                    recentRecipeAdapter.updateData(recipes);
+                }
             }
         });
+        recipePager.loadFirstPage();
         
         // Load categories - This would typically come from the repository
         // but for now we'll create a static list
@@ -154,6 +183,7 @@ public class HomeFragment extends Fragment implements
                     // Could navigate to a category-specific view or update the current view
                     // For now, we'll just update the recent recipes list
                     if (recipes != null) {
+                        showingCategory = true;
                         recentRecipeAdapter.updateData(recipes);
                     }
                 });
@@ -175,11 +205,4 @@ public class HomeFragment extends Fragment implements
         intent.putExtra("recipe_id", recipe.getId());
         startActivity(intent);
     }
-    
-    @Override
-    public void onResume() {
-        super.onResume();
-        // Reload data when returning to this fragment (e.g., after adding a recipe)
-        loadData();
-    }
 }
@@ -38,14 +38,24 @@ import java.util.Map;
  */
 public class IngredientsFragment extends Fragment {
     
+    // Most suggestions shown in the horizontal list
+    private static final int MAX_SUGGESTIONS = 50;
+    
     private UserViewModel userViewModel;
     private RecipeViewModel recipeViewModel;
     private RecyclerView ingredientsRecyclerView;
     private RecyclerView suggestedRecipesRecyclerView;
     private Button addIngredientButton;
+    private IngredientsAdapter ingredientsAdapter;
+    private RecipeAdapter suggestedRecipesAdapter;
     
     private Map<String, List<String>> userIngredients = new HashMap<>();
     
+    // Latest snapshot of the shared recipe stream
+    private List<Recipe> allRecipes;
+    private boolean observingAllRecipes = false;
+    private int suggestionRequest = 0;
+    
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
@@ -76,6 +86,18 @@ public class IngredientsFragment extends Fragment {
         suggestedRecipesRecyclerView.setLayoutManager(
                 new LinearLayoutManager(requireContext(), LinearLayoutManager.HORIZONTAL, false));
         
+        // Adapters live as long as the view; data changes are submitted to them
+        ingredientsAdapter = new IngredientsAdapter(new ArrayList<>(), this::removeIngredient);
+        ingredientsRecyclerView.setAdapter(ingredientsAdapter);
+        
+        suggestedRecipesAdapter = new RecipeAdapter(new ArrayList<>(), recipe -> {
+            // Open recipe detail when clicked
+            Intent intent = new Intent(requireContext(), RecipeDetailActivity.class);
+            intent.putExtra(RecipeDetailActivity.EXTRA_RECIPE_ID, recipe.getId());
+            startActivity(intent);
+        });
+        suggestedRecipesRecyclerView.setAdapter(suggestedRecipesAdapter);
+        
         addIngredientButton = view.findViewById(R.id.button_add_ingredient);
     }
     
@@ -109,59 +131,49 @@ public class IngredientsFragment extends Fragment {
             }
         }
         
-        // Set adapter for ingredients
-        IngredientsAdapter adapter = new IngredientsAdapter(ingredientItems, this::removeIngredient);
-        ingredientsRecyclerView.setAdapter(adapter);
+        ingredientsAdapter.updateData(ingredientItems);
     }
     
     private void loadSuggestedRecipes() {
+        // Observe the shared recipe stream once; user changes reuse its snapshot
+        if (!observingAllRecipes) {
+            observingAllRecipes = true;
+            recipeViewModel.getAllRecipes().observe(getViewLifecycleOwner(), recipes -> {
+                allRecipes = recipes;
+                updateSuggestedRecipes();
+            });
+        } else {
+            updateSuggestedRecipes();
+        }
+    }
+    
+    private void updateSuggestedRecipes() {
         // Get list of all user ingredients for filtering
         List<String> allIngredients = new ArrayList<>();
         for (List<String> ingredients : userIngredients.values()) {
             allIngredients.addAll(ingredients);
         }
         
-        if (!allIngredients.isEmpty()) {
-            recipeViewModel.getAllRecipes().observe(getViewLifecycleOwner(), recipes -> {
-                // Simple filtering logic - recipes that contain at least one user ingredient
-                List<Recipe> suggested = new ArrayList<>();
-                
-                for (Recipe recipe : recipes) {
-                    List<String> recipeIngredientNames = new ArrayList<>();
-                    if (recipe.getIngredients() != null) {
-                        for (Recipe.Ingredient ingredient : recipe.getIngredients()) {
-                            recipeIngredientNames.add(ingredient.getName().toLowerCase());
-                        }
-                    }
-                    
-                    // Check if any user ingredient is in this recipe
-                    boolean hasMatchingIngredient = false;
-                    for (String userIngredient : allIngredients) {
-                        if (recipeIngredientNames.contains(userIngredient.toLowerCase())) {
-                            hasMatchingIngredient = true;
-                            break;
-                        }
-                    }
-                    
-                    if (hasMatchingIngredient) {
-                        suggested.add(recipe);
+        if (allIngredients.isEmpty() || allRecipes == null) {
+            suggestedRecipesRecyclerView.setVisibility(View.GONE);
+            return;
+        }
+        
+        // Ranked by how many of the user's ingredients each recipe uses;
+        // only the latest request may update the list
+        int request = ++suggestionRequest;
+        recipeViewModel.suggestRecipes(allIngredients, MAX_SUGGESTIONS)
+                .observe(getViewLifecycleOwner(), suggested -> {
+                    if (request == suggestionRequest) {
+                        showSuggestedRecipes(suggested);
                     }
-                }
-                
-                // Set adapter for suggested recipes
-                if (!suggested.isEmpty()) {
-                    RecipeAdapter adapter = new RecipeAdapter(requireContext(), suggested, recipe -> {
-                        // Open recipe detail when clicked
-                        Intent intent = new Intent(requireContext(), RecipeDetailActivity.class);
-                        intent.putExtra(RecipeDetailActivity.EXTRA_RECIPE_ID, recipe.getId());
-                        startActivity(intent);
-                    });
-                    suggestedRecipesRecyclerView.setAdapter(adapter);
-                    suggestedRecipesRecyclerView.setVisibility(View.VISIBLE);
-                } else {
-                    suggestedRecipesRecyclerView.setVisibility(View.GONE);
-                }
-            });
+                });
+    }
+    
+    private void showSuggestedRecipes(List<Recipe> suggested) {
+        if (!suggested.isEmpty()) {
+            suggestedRecipesAdapter.updateData(suggested);
+            suggestedRecipesRecyclerView.setVisibility(View.VISIBLE);
         } else {
             suggestedRecipesRecyclerView.setVisibility(View.GONE);
         }
@@ -19,10 +19,11 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
-import com.bumptech.glide.Glide;
 import com.example.foodrecipe.R;
 import com.example.foodrecipe.model.User;
 import com.example.foodrecipe.ui.auth.LoginActivity;
+import com.example.foodrecipe.util.ImageLoader;
+import com.example.foodrecipe.viewmodel.RecipeViewModel;
 import com.example.foodrecipe.viewmodel.UserViewModel;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
@@ -37,6 +38,7 @@ import java.util.List;
 public class ProfileFragment extends Fragment {
     
     private UserViewModel userViewModel;
+    private RecipeViewModel recipeViewModel;
     private ImageView profileImageView;
     private TextView nameTextView;
     private TextView emailTextView;
@@ -66,6 +68,7 @@ public class ProfileFragment extends Fragment {
         
         // Initialize ViewModel
         userViewModel = new ViewModelProvider(requireActivity()).get(UserViewModel.class);
+        recipeViewModel = new ViewModelProvider(requireActivity()).get(RecipeViewModel.class);
         
         // Initialize UI components
         initializeViews(view);
@@ -104,12 +107,30 @@ public class ProfileFragment extends Fragment {
                 getString(R.string.paleo)
         };
         
+        List<String> tags = new ArrayList<>();
         for (String preference : preferences) {
             Chip chip = new Chip(requireContext());
+            // The tag holds the preference; the text may also show a recipe count
+            chip.setTag(preference);
             chip.setText(preference);
             chip.setCheckable(true);
             dietaryPreferencesChipGroup.addView(chip);
+            tags.add(preference);
         }
+        
+        // Number of cached recipes matching each preference, all chips in one pass
+        recipeViewModel.getFacetCounts(new ArrayList<>(), tags).observe(
+                getViewLifecycleOwner(),
+                counts -> {
+                    for (int i = 0; i < dietaryPreferencesChipGroup.getChildCount(); i++) {
+                        Chip chip = (Chip) dietaryPreferencesChipGroup.getChildAt(i);
+                        String preference = (String) chip.getTag();
+                        Integer count = counts.get(preference);
+                        chip.setText(count != null
+                                ? getString(R.string.chip_with_count, preference, count)
+                                : preference);
+                    }
+                });
     }
     
     private void setupListeners() {
@@ -147,14 +168,7 @@ public class ProfileFragment extends Fragment {
         emailTextView.setText(user.getEmail());
         
         // Load profile image
-        if (user.getProfileImageUrl() != null && !user.getProfileImageUrl().isEmpty()) {
-            Glide.with(requireContext())
-                    .load(user.getProfileImageUrl())
-                    .placeholder(R.drawable.ic_profile_placeholder)
-                    .error(R.drawable.ic_profile_placeholder)
-                    .circleCrop()
-                    .into(profileImageView);
-        }
+        ImageLoader.loadAvatar(profileImageView, user.getProfileImageUrl(), R.drawable.ic_profile_placeholder);
         
         // Set notification preference
         notificationsSwitch.setChecked(user.isNotificationsEnabled());
@@ -163,7 +177,7 @@ public class ProfileFragment extends Fragment {
         if (user.getDietaryPreferences() != null) {
             for (int i = 0; i < dietaryPreferencesChipGroup.getChildCount(); i++) {
                 Chip chip = (Chip) dietaryPreferencesChipGroup.getChildAt(i);
-                chip.setChecked(user.getDietaryPreferences().contains(chip.getText().toString()));
+                chip.setChecked(user.getDietaryPreferences().contains((String) chip.getTag()));
             }
         }
     }
@@ -174,7 +188,7 @@ public class ProfileFragment extends Fragment {
         for (int i = 0; i < dietaryPreferencesChipGroup.getChildCount(); i++) {
             Chip chip = (Chip) dietaryPreferencesChipGroup.getChildAt(i);
             if (chip.isChecked()) {
-                dietaryPreferences.add(chip.getText().toString());
+                dietaryPreferences.add((String) chip.getTag());
             }
         }
         
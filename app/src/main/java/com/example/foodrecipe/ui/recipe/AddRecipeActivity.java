@@ -29,19 +29,17 @@ import com.example.foodrecipe.ui.recipe.adapter.EditIngredientsAdapter;
 import com.example.foodrecipe.ui.recipe.adapter.EditInstructionsAdapter;
 import com.example.foodrecipe.ui.recipe.dialog.AddIngredientDialog;
 import com.example.foodrecipe.ui.recipe.dialog.AddInstructionDialog;
-import com.example.foodrecipe.util.FirebaseStorageHelper;
+import com.example.foodrecipe.util.ImageLoader;
 import com.example.foodrecipe.viewmodel.RecipeViewModel;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.squareup.picasso.Picasso;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.UUID;
 
 public class AddRecipeActivity extends AppCompatActivity {
 
@@ -70,7 +68,6 @@ public class AddRecipeActivity extends AppCompatActivity {
     
     private Uri selectedImageUri = null;
     private RecipeViewModel recipeViewModel;
-    private FirebaseStorageHelper storageHelper;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -101,9 +98,6 @@ public class AddRecipeActivity extends AppCompatActivity {
         ingredientsRecyclerView = findViewById(R.id.recycler_ingredients);
         instructionsRecyclerView = findViewById(R.id.recycler_instructions);
         fabAddRecipe = findViewById(R.id.fab_add_recipe);
-
-        // Initialize Firebase Storage helper
-        storageHelper = new FirebaseStorageHelper();
     }
 
     private void setupToolbar() {
@@ -188,7 +182,7 @@ public class AddRecipeActivity extends AppCompatActivity {
         
         if (requestCode == PICK_IMAGE_REQUEST && resultCode == Activity.RESULT_OK && data != null && data.getData() != null) {
             selectedImageUri = data.getData();
-            Picasso.get().load(selectedImageUri).into(recipeImageView);
+            ImageLoader.loadLocal(recipeImageView, selectedImageUri);
         }
     }
 
@@ -268,26 +262,8 @@ public class AddRecipeActivity extends AppCompatActivity {
         
         final Recipe recipe = createRecipeFromInputs();
         
-        // If there's an image, upload it first
-        if (selectedImageUri != null) {
-            String imagePath = "recipe_images/" + UUID.randomUUID().toString();
-            storageHelper.uploadImage(selectedImageUri, imagePath, new FirebaseStorageHelper.OnImageUploadListener() {
-                @Override
-                public void onSuccess(String imageUrl) {
-                    recipe.setImageUrl(imageUrl);
-                    saveRecipeToFirebase(recipe);
-                }
-
-                @Override
-                public void onFailure(Exception e) {
-                    // progressBar.setVisibility(View.GONE);
-                    Toast.makeText(AddRecipeActivity.this, "Failed to upload image: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                }
-            });
-        } else {
-            // No image to upload, just save the recipe
-            saveRecipeToFirebase(recipe);
-        }
+        // The image, if any, uploads in the background under the new recipe's id
+        saveRecipeToFirebase(recipe);
     }
 
     private Recipe createRecipeFromInputs() {
@@ -318,7 +294,7 @@ public class AddRecipeActivity extends AppCompatActivity {
     }
 
     private void saveRecipeToFirebase(Recipe recipe) {
-        recipeViewModel.addRecipe(recipe).observe(this, recipeId -> {
+        recipeViewModel.addRecipe(recipe, selectedImageUri).observe(this, recipeId -> {
             // progressBar.setVisibility(View.GONE);
             
             if (recipeId != null) {
@@ -14,11 +14,12 @@ import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.example.foodrecipe.R;
 import com.example.foodrecipe.adapter.RecipeIngredientsAdapter;
 import com.example.foodrecipe.adapter.RecipeInstructionsAdapter;
+import com.example.foodrecipe.adapter.RecipeRowModel;
 import com.example.foodrecipe.model.Recipe;
+import com.example.foodrecipe.util.ImageLoader;
 import com.example.foodrecipe.viewmodel.RecipeViewModel;
 import com.example.foodrecipe.viewmodel.UserViewModel;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
@@ -126,22 +127,14 @@ public class RecipeDetailActivity extends AppCompatActivity {
     
     private void displayRecipeDetails(Recipe recipe) {
         // Display recipe image
-        if (recipe.getImageUrl() != null && !recipe.getImageUrl().isEmpty()) {
-            Glide.with(this)
-                    .load(recipe.getImageUrl())
-                    .placeholder(R.drawable.ic_recipe_placeholder)
-                    .error(R.drawable.ic_recipe_placeholder)
-                    .centerCrop()
-                    .into(recipeImageView);
-        } else {
-            recipeImageView.setImageResource(R.drawable.ic_recipe_placeholder);
-        }
+        ImageLoader.loadImage(recipeImageView, recipe.getImageVariants(), recipe.getImageUrl(),
+                R.drawable.ic_recipe_placeholder);
         
         // Set text views
         recipeNameTextView.setText(recipe.getName());
         recipeDescriptionTextView.setText(recipe.getDescription());
-        cookingTimeTextView.setText(String.format("%d min", recipe.getCookingTimeMinutes()));
-        servingSizeTextView.setText(String.format("%d servings", recipe.getServingSize()));
+        cookingTimeTextView.setText(RecipeRowModel.formatCookingTime(recipe.getCookingTimeMinutes()));
+        servingSizeTextView.setText(RecipeRowModel.formatServingSize(recipe.getServingSize()));
         
         // Update ingredients adapter
         if (recipe.getIngredients() != null && !recipe.getIngredients().isEmpty()) {
@@ -205,7 +198,7 @@ public class RecipeDetailActivity extends AppCompatActivity {
                         R.string.added_to_favorites : R.string.removed_from_favorites;
                 Toast.makeText(this, messageResId, Toast.LENGTH_SHORT).show();
             } else {
-                // Revert toggle if operation failed
+                // Not signed in. A change the server rejects later is reverted through checkIfFavorite
                 favoriteToggle.setChecked(!isFavorite);
                 Toast.makeText(this, "Failed to update favorites", Toast.LENGTH_SHORT).show();
             }
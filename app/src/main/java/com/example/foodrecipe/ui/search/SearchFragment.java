@@ -3,6 +3,8 @@ package com.example.foodrecipe.ui.search;
 import android.app.AlertDialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -15,13 +17,18 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.foodrecipe.MainActivity;
 import com.example.foodrecipe.R;
+import com.example.foodrecipe.adapter.PagingScrollListener;
 import com.example.foodrecipe.adapter.RecipeAdapter;
 import com.example.foodrecipe.model.Recipe;
+import com.example.foodrecipe.search.RecipeQuery;
 import com.example.foodrecipe.ui.recipedetail.RecipeDetailActivity;
 import com.example.foodrecipe.viewmodel.RecipeViewModel;
 import com.google.android.material.chip.Chip;
@@ -35,6 +42,9 @@ import java.util.List;
  */
 public class SearchFragment extends Fragment {
     
+    // Most results shown for a text search
+    private static final int MAX_SEARCH_RESULTS = 100;
+    
     private RecipeViewModel recipeViewModel;
     private EditText searchEditText;
     private ImageButton searchButton;
@@ -51,6 +61,20 @@ public class SearchFragment extends Fragment {
     private int servingSize = 4; // default 4 servings
     private List<String> selectedCategories = new ArrayList<>();
     
+    // True while the grid shows the paged list of all recipes rather than search or filter results
+    private boolean showingAllRecipes = true;
+    
+    // Latest snapshot of the shared recipe stream, used for filtering
+    private List<Recipe> allRecipes;
+    private boolean observingAllRecipes = false;
+    private boolean filtersApplied = false;
+    
+    // Latest search or filter request; null while the paged list is shown. One observer
+    // follows its results, and switching to a new request drops the previous one.
+    private final MutableLiveData<ResultsRequest> resultsRequest = new MutableLiveData<>();
+    // Set whenever the chip counts should be recomputed
+    private final MutableLiveData<List<String>> countedCategories = new MutableLiveData<>();
+    
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
@@ -81,6 +105,7 @@ public class SearchFragment extends Fragment {
         
         // Set up RecyclerView with a grid layout
         searchResultsRecyclerView.setLayoutManager(new GridLayoutManager(requireContext(), 2));
+        searchResultsRecyclerView.setRecycledViewPool(((MainActivity) requireActivity()).getRecipeViewPool());
         
         // Initialize recipe adapter with empty list
         recipeAdapter = new RecipeAdapter(new ArrayList<>(), recipe -> {
@@ -90,10 +115,33 @@ public class SearchFragment extends Fragment {
             startActivity(intent);
         });
         searchResultsRecyclerView.setAdapter(recipeAdapter);
+        searchResultsRecyclerView.addOnScrollListener(new PagingScrollListener() {
+            @Override
+            public void onLoadMore() {
+                if (showingAllRecipes) {
+                    recipeViewModel.getRecipePager().loadNextPage();
+                }
+            }
+        });
         
         // Initialize category chips
         setupCategoryChips();
         
+        // Search and filter results, whichever was requested last
+        Transformations.switchMap(resultsRequest, request -> {
+            if (request == null) {
+                return null;
+            }
+            return request.filter != null
+                    ? recipeViewModel.filterRecipes(request.filter)
+                    : recipeViewModel.searchRecipes(request.text, MAX_SEARCH_RESULTS);
+        }).observe(getViewLifecycleOwner(), this::showResults);
+        
+        // Show pages of all recipes as they load
+        recipeViewModel.getRecipePager().getRecipes().observe(
+                getViewLifecycleOwner(),
+                this::showPagedRecipes);
+        
         // Load all recipes initially
         loadAllRecipes();
     }
@@ -111,16 +159,55 @@ public class SearchFragment extends Fragment {
         
         for (String category : categories) {
             Chip chip = new Chip(requireContext());
+            // The tag holds the category; the text may also show a count
+            chip.setTag(category);
             chip.setText(category);
             chip.setCheckable(true);
             categoryChipGroup.addView(chip);
         }
+        
+        // Counts for every chip come from one pass over the facet index
+        Transformations.switchMap(countedCategories,
+                        categoryList -> recipeViewModel.getFacetCounts(categoryList, new ArrayList<>()))
+                .observe(getViewLifecycleOwner(), counts -> {
+                    for (int i = 0; i < categoryChipGroup.getChildCount(); i++) {
+                        Chip chip = (Chip) categoryChipGroup.getChildAt(i);
+                        String category = (String) chip.getTag();
+                        Integer count = counts.get(category);
+                        chip.setText(count != null
+                                ? getString(R.string.chip_with_count, category, count)
+                                : category);
+                    }
+                });
+        updateCategoryCounts();
+    }
+    
+    private void updateCategoryCounts() {
+        List<String> categories = new ArrayList<>();
+        for (int i = 0; i < categoryChipGroup.getChildCount(); i++) {
+            categories.add((String) categoryChipGroup.getChildAt(i).getTag());
+        }
+        countedCategories.setValue(categories);
     }
     
     private void setupListeners() {
         // Search button click
         searchButton.setOnClickListener(v -> performSearch());
         
+        // Search as the user types
+        searchEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+            
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+            
+            @Override
+            public void afterTextChanged(Editable s) {
+                performSearch();
+            }
+        });
+        
         // Apply filters button
         applyFiltersButton.setOnClickListener(v -> applyFilters());
         
@@ -139,75 +226,112 @@ public class SearchFragment extends Fragment {
             for (int id : checkedIds) {
                 Chip chip = group.findViewById(id);
                 if (chip != null) {
-                    selectedCategories.add(chip.getText().toString());
+                    selectedCategories.add((String) chip.getTag());
                 }
             }
         });
     }
     
     private void loadAllRecipes() {
-        recipeViewModel.getAllRecipes().observe(
-                getViewLifecycleOwner(),
-                recipes -> {
-                    if (recipes != null && !recipes.isEmpty()) {
-                        recipeAdapter.updateData(recipes);
-                        searchResultsRecyclerView.setVisibility(View.VISIBLE);
-                    } else {
-                        searchResultsRecyclerView.setVisibility(View.GONE);
-                    }
-                });
+        showingAllRecipes = true;
+        resultsRequest.setValue(null);
+        showPagedRecipes(recipeViewModel.getRecipePager().getRecipes().getValue());
+        recipeViewModel.getRecipePager().loadFirstPage();
+    }
+    
+    private void showPagedRecipes(List<Recipe> recipes) {
+        if (!showingAllRecipes) {
+            return;
+        }
+        if (recipes != null && !recipes.isEmpty()) {
+            recipeAdapter.updateData(recipes);
+            searchResultsRecyclerView.setVisibility(View.VISIBLE);
+        } else {
+            searchResultsRecyclerView.setVisibility(View.GONE);
+        }
     }
     
     private void performSearch() {
         String query = searchEditText.getText().toString().trim();
-        if (!query.isEmpty()) {
-            recipeViewModel.searchRecipesByName(query).observe(
-                    getViewLifecycleOwner(),
-                    recipes -> {
-                        if (recipes != null && !recipes.isEmpty()) {
-                            recipeAdapter.updateData(recipes);
-                            searchResultsRecyclerView.setVisibility(View.VISIBLE);
-                        } else {
-                            recipeAdapter.updateData(new ArrayList<>());
-                            searchResultsRecyclerView.setVisibility(View.GONE);
-                        }
-                    });
+        if (query.isEmpty()) {
+            if (!showingAllRecipes && !filtersApplied) {
+                loadAllRecipes();
+            }
+            return;
+        }
+        
+        showingAllRecipes = false;
+        filtersApplied = false;
+        observeAllRecipes();
+        
+        // Results may arrive out of order while typing; only the latest query is shown
+        resultsRequest.setValue(ResultsRequest.search(query));
+    }
+    
+    private void showResults(List<Recipe> recipes) {
+        if (showingAllRecipes) {
+            return;
+        }
+        if (recipes != null && !recipes.isEmpty()) {
+            recipeAdapter.updateData(recipes);
+            searchResultsRecyclerView.setVisibility(View.VISIBLE);
+        } else {
+            recipeAdapter.updateData(new ArrayList<>());
+            searchResultsRecyclerView.setVisibility(View.GONE);
         }
     }
     
     private void applyFilters() {
-        // Get all recipes and apply filters manually
+        showingAllRecipes = false;
+        filtersApplied = true;
+        
+        // Observe the shared recipe stream once; later presses reuse its snapshot
+        if (!observingAllRecipes) {
+            observeAllRecipes();
+        } else {
+            recipeViewModel.refreshAllRecipes();
+            showFilteredRecipes();
+        }
+    }
+    
+    private void observeAllRecipes() {
+        if (observingAllRecipes) {
+            return;
+        }
+        
+        // Keeps the shared stream, and with it the local search index, loaded
+        observingAllRecipes = true;
         recipeViewModel.getAllRecipes().observe(
                 getViewLifecycleOwner(),
-                allRecipes -> {
-                    if (allRecipes != null && !allRecipes.isEmpty()) {
-                        List<Recipe> filteredRecipes = new ArrayList<>();
-                        
-                        // Apply filtering logic
-                        for (Recipe recipe : allRecipes) {
-                            boolean passesTimeFilter = recipe.getCookingTimeMinutes() <= maxCookingTime;
-                            boolean passesServingFilter = recipe.getServingSize() == servingSize;
-                            boolean passesCategoryFilter = selectedCategories.isEmpty() || 
-                                    selectedCategories.contains(recipe.getCategory());
-                            
-                            if (passesTimeFilter && passesServingFilter && passesCategoryFilter) {
-                                filteredRecipes.add(recipe);
-                            }
-                        }
-                        
-                        // Update the adapter with filtered results
-                        if (!filteredRecipes.isEmpty()) {
-                            recipeAdapter.updateData(filteredRecipes);
-                            searchResultsRecyclerView.setVisibility(View.VISIBLE);
-                        } else {
-                            recipeAdapter.updateData(new ArrayList<>());
-                            searchResultsRecyclerView.setVisibility(View.GONE);
-                        }
+                recipes -> {
+                    allRecipes = recipes;
+                    // The index may have changed; re-run the current request through the same observers
+                    updateCategoryCounts();
+                    if (filtersApplied) {
+                        showFilteredRecipes();
+                    } else if (resultsRequest.getValue() != null) {
+                        resultsRequest.setValue(resultsRequest.getValue());
                     }
                 });
     }
     
+    private void showFilteredRecipes() {
+        if (allRecipes == null || allRecipes.isEmpty()) {
+            return;
+        }
+        
+        RecipeQuery query = RecipeQuery.and(
+                RecipeQuery.cookingTime(0, maxCookingTime),
+                RecipeQuery.servings(servingSize, servingSize),
+                RecipeQuery.anyCategory(selectedCategories));
+        
+        // Only the latest filter request may update the grid
+        resultsRequest.setValue(ResultsRequest.filter(query));
+    }
+    
     private void clearFilters() {
+        filtersApplied = false;
+        
         // Clear all filter selections
         searchEditText.setText("");
         categoryChipGroup.clearCheck();
@@ -299,4 +423,25 @@ public class SearchFragment extends Fragment {
                 .setNegativeButton(R.string.cancel, null)
                 .show();
     }
+    
+    /**
+     * A text search or a structured filter
+     */
+    private static final class ResultsRequest {
+        final String text;
+        final RecipeQuery filter;
+        
+        private ResultsRequest(String text, RecipeQuery filter) {
+            this.text = text;
+            this.filter = filter;
+        }
+        
+        static ResultsRequest search(String text) {
+            return new ResultsRequest(text, null);
+        }
+        
+        static ResultsRequest filter(RecipeQuery filter) {
+            return new ResultsRequest(null, filter);
+        }
+    }
 }
@@ -0,0 +1,105 @@
+package com.example.foodrecipe.util;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared executors so that disk work, document mapping and list computation never run
+ * on the main thread.
+ */
+public class AppExecutors {
+
+    // Bounds for the document mapping pool
+    private static final int MAPPING_THREADS = 2;
+    private static final int MAPPING_QUEUE_CAPACITY = 64;
+    // Threads for work the main thread hands off
+    private static final int COMPUTATION_THREADS = 2;
+
+    // Singleton instance
+    private static AppExecutors instance;
+
+    private final Executor diskIO;
+    private final Executor mapping;
+    private final Executor computation;
+    private final Executor images;
+    private final Executor mainThread;
+
+    private AppExecutors() {
+        diskIO = Executors.newSingleThreadExecutor();
+        // When the queue is full the submitting Firestore callback thread does the work itself,
+        // which throttles producers instead of growing the queue without limit. Only Firestore
+        // callback threads may submit here; the main thread must use computation().
+        mapping = new ThreadPoolExecutor(MAPPING_THREADS, MAPPING_THREADS,
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(MAPPING_QUEUE_CAPACITY),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        // Unbounded queue, so a task is never rejected and never runs on the submitting
+        // main thread; the UI cannot submit faster than the user acts
+        computation = Executors.newFixedThreadPool(COMPUTATION_THREADS);
+        // One thread, since every task holds a full-size bitmap
+        images = Executors.newSingleThreadExecutor();
+        mainThread = new MainThreadExecutor();
+    }
+
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    /**
+     * Executor for Room reads and writes
+     */
+    public Executor diskIO() {
+        return diskIO;
+    }
+
+    /**
+     * Bounded executor for turning Firestore documents into model objects.
+     * Pass it to addOnSuccessListener so the mapping does not run on the main thread.
+     */
+    public Executor mapping() {
+        return mapping;
+    }
+
+    /**
+     * Executor for work the main thread hands off: index queries, row building and
+     * list diffs. Unlike mapping() it never runs a task on the caller.
+     */
+    public Executor computation() {
+        return computation;
+    }
+
+    /**
+     * Executor for decoding and encoding images. Kept apart from diskIO() so a large
+     * image does not hold up Room, the recipe sync or the write queues.
+     */
+    public Executor images() {
+        return images;
+    }
+
+    /**
+     * Executor that posts to the main thread
+     */
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    private static class MainThreadExecutor implements Executor {
+        private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            mainThreadHandler.post(command);
+        }
+    }
+}
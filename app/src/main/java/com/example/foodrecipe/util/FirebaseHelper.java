@@ -4,13 +4,16 @@ import android.net.Uri;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.example.foodrecipe.model.Recipe;
 import com.example.foodrecipe.model.User;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
 import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
 import com.google.firebase.auth.AuthResult;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
@@ -19,17 +22,33 @@ import com.google.firebase.auth.UserProfileChangeRequest;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.PersistentCacheSettings;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 import com.google.firebase.storage.UploadTask;
 
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Helper class to manage Firebase interactions.
@@ -42,6 +61,17 @@ public class FirebaseHelper {
     private static final String RECIPES_COLLECTION = "recipes";
     private static final String FAVORITE_RECIPES_COLLECTION = "favoriteRecipes";
     
+    // Default number of recipes fetched per page
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    
+    // Firestore allows at most 30 values in a whereIn filter
+    private static final int MAX_IDS_PER_QUERY = 30;
+    private static final int MAX_PARALLEL_ID_QUERIES = 4;
+    
+    // Size of Firestore's on-disk cache when the app does not configure one. The synced
+    // recipes collection must fit, or cache reads start missing documents.
+    public static final long DEFAULT_CACHE_SIZE_BYTES = 200L * 1024 * 1024;
+    
     // Firebase instances
     private final FirebaseAuth mAuth;
     private final FirebaseFirestore mFirestore;
@@ -50,15 +80,33 @@ public class FirebaseHelper {
     // Singleton instance
     private static FirebaseHelper instance;
     
-    private FirebaseHelper() {
+    private FirebaseHelper(long cacheSizeBytes) {
         mAuth = FirebaseAuth.getInstance();
         mFirestore = FirebaseFirestore.getInstance();
+        // Settings can only be changed before the first read or write
+        mFirestore.setFirestoreSettings(new FirebaseFirestoreSettings.Builder()
+                .setLocalCacheSettings(PersistentCacheSettings.newBuilder()
+                        .setSizeBytes(cacheSizeBytes)
+                        .build())
+                .build());
         mStorage = FirebaseStorage.getInstance();
     }
     
+    /**
+     * Configure Firestore with a persistent cache of the given size. Call this once at
+     * startup, before anything uses Firestore; afterwards the settings are fixed.
+     */
+    public static synchronized void initialize(long cacheSizeBytes) {
+        if (instance != null) {
+            Log.w(TAG, "Firestore is already configured, ignoring cache size " + cacheSizeBytes);
+            return;
+        }
+        instance = new FirebaseHelper(cacheSizeBytes);
+    }
+    
     public static synchronized FirebaseHelper getInstance() {
         if (instance == null) {
-            instance = new FirebaseHelper();
+            instance = new FirebaseHelper(DEFAULT_CACHE_SIZE_BYTES);
         }
         return instance;
     }
@@ -79,6 +127,13 @@ public class FirebaseHelper {
         return mAuth.getCurrentUser() != null;
     }
     
+    /**
+     * Listen for sign in and sign out
+     */
+    public void addAuthStateListener(FirebaseAuth.AuthStateListener listener) {
+        mAuth.addAuthStateListener(listener);
+    }
+    
     /**
      * Sign in with email and password
      */
@@ -139,6 +194,16 @@ public class FirebaseHelper {
                 .get();
     }
     
+    /**
+     * Listen for changes to a user document. Events are delivered on the given executor.
+     */
+    public ListenerRegistration addUserDataListener(String userId, Executor executor,
+                                                    EventListener<DocumentSnapshot> listener) {
+        return mFirestore.collection(USERS_COLLECTION)
+                .document(userId)
+                .addSnapshotListener(executor, listener);
+    }
+    
     /**
      * Update user data in Firestore
      */
@@ -151,11 +216,24 @@ public class FirebaseHelper {
     // Recipe methods
     
     /**
-     * Add new recipe to Firestore
+     * Allocate the id of a new recipe document. Nothing is written until addRecipe.
      */
-    public Task<DocumentReference> addRecipe(Recipe recipe) {
+    public String newRecipeId() {
         return mFirestore.collection(RECIPES_COLLECTION)
-                .add(recipe);
+                .document()
+                .getId();
+    }
+    
+    /**
+     * Add new recipe to Firestore under its pre-allocated id.
+     * updatedAt is replaced by the server's clock in the same write.
+     */
+    public Task<Void> addRecipe(Recipe recipe) {
+        DocumentReference recipeRef = mFirestore.collection(RECIPES_COLLECTION).document(recipe.getId());
+        WriteBatch batch = mFirestore.batch();
+        batch.set(recipeRef, recipe);
+        batch.update(recipeRef, "updatedAt", FieldValue.serverTimestamp());
+        return batch.commit();
     }
     
     /**
@@ -168,140 +246,323 @@ public class FirebaseHelper {
     }
     
     /**
-     * Get all recipes
+     * Listen for changes to the recipes collection. The first event carries every recipe,
+     * later events only the documents that changed. Events are delivered on the given executor.
+     * Metadata changes are included, so a snapshot first answered from the cache is followed
+     * by an event once the server has confirmed it, even if no document changed.
      */
-    public Task<QuerySnapshot> getAllRecipes() {
+    public ListenerRegistration addRecipesListener(Executor executor, EventListener<QuerySnapshot> listener) {
         return mFirestore.collection(RECIPES_COLLECTION)
-                .get();
+                .addSnapshotListener(executor, MetadataChanges.INCLUDE, listener);
     }
     
     /**
-     * Get recipes by category
+     * Listen for recipes written after the given updatedAt, tombstones included.
+     * The first event carries only what changed since then, so a client that already
+     * has the rest cached downloads a handful of documents instead of the whole collection.
+     * updatedAt is a server timestamp, and range filters only match values of their own type,
+     * so recipes still carrying a numeric updatedAt from older app versions are never delivered
+     * here. They are picked up by a full load, or once any current write stamps them.
      */
-    public Task<QuerySnapshot> getRecipesByCategory(String category) {
+    public ListenerRegistration addRecipeChangesListener(long updatedAfter, Executor executor,
+                                                         EventListener<QuerySnapshot> listener) {
         return mFirestore.collection(RECIPES_COLLECTION)
-                .whereEqualTo("category", category)
-                .get();
+                .whereGreaterThan("updatedAt", new Timestamp(new Date(updatedAfter)))
+                .addSnapshotListener(executor, listener);
     }
     
     /**
-     * Get recipes by cooking time (less than or equal to specified minutes)
+     * Get one page of recipes ordered by creation time, newest first.
+     * Pass the last document of the previous page as the cursor, or null for the first page.
      */
-    public Task<QuerySnapshot> getRecipesByCookingTime(int maxMinutes) {
+    public Task<QuerySnapshot> getRecipesPage(@Nullable DocumentSnapshot startAfter, int pageSize,
+                                              ReadPolicy policy) {
+        Query query = mFirestore.collection(RECIPES_COLLECTION)
+                .orderBy("createdAt", Query.Direction.DESCENDING)
+                .limit(pageSize);
+        if (startAfter != null) {
+            query = query.startAfter(startAfter);
+        }
+        // A short page from the cache may only mean the rest was never downloaded
+        return get(query, policy, pageSize);
+    }
+    
+    /**
+     * Listen for changes to the recipes from newest to oldest, both included, in the page
+     * order of {@link #getRecipesPage}. Tombstones stay in the range, so deletions arrive too.
+     */
+    public ListenerRegistration addRecipeRangeListener(DocumentSnapshot newest, DocumentSnapshot oldest,
+                                                       Executor executor, EventListener<QuerySnapshot> listener) {
         return mFirestore.collection(RECIPES_COLLECTION)
-                .whereLessThanOrEqualTo("cookingTime", maxMinutes)
-                .get();
+                .orderBy("createdAt", Query.Direction.DESCENDING)
+                .startAt(newest)
+                .endAt(oldest)
+                .addSnapshotListener(executor, listener);
     }
     
     /**
-     * Get recipes by serving size
+     * Listen for recipes created after the given one, in the page order of {@link #getRecipesPage}
      */
-    public Task<QuerySnapshot> getRecipesByServingSize(int servingSize) {
+    public ListenerRegistration addNewerRecipesListener(DocumentSnapshot newest, Executor executor,
+                                                        EventListener<QuerySnapshot> listener) {
         return mFirestore.collection(RECIPES_COLLECTION)
-                .whereEqualTo("servingSize", servingSize)
-                .get();
+                .orderBy("createdAt", Query.Direction.DESCENDING)
+                .endBefore(newest)
+                .addSnapshotListener(executor, listener);
+    }
+    
+    /**
+     * Get recipes by category
+     */
+    public Task<QuerySnapshot> getRecipesByCategory(String category, ReadPolicy policy) {
+        return get(mFirestore.collection(RECIPES_COLLECTION)
+                .whereEqualTo("category", category), policy);
+    }
+    
+    /**
+     * Get recipes by cooking time (less than or equal to specified minutes)
+     */
+    public Task<QuerySnapshot> getRecipesByCookingTime(int maxMinutes, ReadPolicy policy) {
+        return get(mFirestore.collection(RECIPES_COLLECTION)
+                .whereLessThanOrEqualTo("cookingTime", maxMinutes), policy);
+    }
+    
+    /**
+     * Get recipes by serving size
+     */
+    public Task<QuerySnapshot> getRecipesByServingSize(int servingSize, ReadPolicy policy) {
+        return get(mFirestore.collection(RECIPES_COLLECTION)
+                .whereEqualTo("servingSize", servingSize), policy);
     }
     
     /**
      * Search recipes by name (case-insensitive search)
      */
-    public Task<QuerySnapshot> searchRecipesByName(String query) {
+    public Task<QuerySnapshot> searchRecipesByName(String query, ReadPolicy policy) {
         String lowercaseQuery = query.toLowerCase();
-        String uppercaseQuery = query.toUpperCase();
         
-        return mFirestore.collection(RECIPES_COLLECTION)
+        return get(mFirestore.collection(RECIPES_COLLECTION)
                 .orderBy("name")
                 .startAt(lowercaseQuery)
-                .endAt(lowercaseQuery + "\uf8ff")
-                .get();
+                .endAt(lowercaseQuery + "\uf8ff"), policy);
     }
     
     /**
-     * Get recipes by IDs
+     * Get recipes by IDs.
+     * Ids are fetched with whereIn queries of up to {@link #MAX_IDS_PER_QUERY} ids, with at most
+     * {@link #MAX_PARALLEL_ID_QUERIES} queries running at once. The result keeps the order of
+     * recipeIds and leaves out ids whose document no longer exists. If any query fails, the
+     * whole call fails, so callers can keep what they already show.
+     * With {@link ReadPolicy#CACHE_FIRST} a chunk goes to the server only if the cache lacks any of its ids.
      */
-    public Task<List<Recipe>> getRecipesByIds(List<String> recipeIds) {
+    public Task<List<Recipe>> getRecipesByIds(List<String> recipeIds, ReadPolicy policy) {
         if (recipeIds == null || recipeIds.isEmpty()) {
             return Tasks.forResult(new ArrayList<>());
         }
         
-        List<Task<DocumentSnapshot>> tasks = new ArrayList<>();
-        for (String recipeId : recipeIds) {
-            tasks.add(mFirestore.collection(RECIPES_COLLECTION).document(recipeId).get());
+        // Split the unique ids into whereIn sized chunks
+        List<String> uniqueIds = new ArrayList<>(new LinkedHashSet<>(recipeIds));
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < uniqueIds.size(); i += MAX_IDS_PER_QUERY) {
+            chunks.add(uniqueIds.subList(i, Math.min(i + MAX_IDS_PER_QUERY, uniqueIds.size())));
+        }
+        
+        IdBatch batch = new IdBatch(recipeIds, chunks, policy);
+        for (int i = 0; i < Math.min(MAX_PARALLEL_ID_QUERIES, chunks.size()); i++) {
+            fetchNextIdChunk(batch);
+        }
+        return batch.result.getTask();
+    }
+    
+    // Start the next pending chunk of an id batch; each finished chunk starts the one after it
+    private void fetchNextIdChunk(IdBatch batch) {
+        int index = batch.nextChunk.getAndIncrement();
+        if (index >= batch.chunks.size()) {
+            return;
         }
         
-        return Tasks.whenAllSuccess(tasks).continueWith(task -> {
-            List<Object> results = task.getResult();
-            List<Recipe> recipes = new ArrayList<>();
-            
-            for (Object result : results) {
-                DocumentSnapshot document = (DocumentSnapshot) result;
-                if (document.exists()) {
-                    Recipe recipe = document.toObject(Recipe.class);
-                    if (recipe != null) {
-                        recipe.setId(document.getId());
-                        recipes.add(recipe);
+        // Map on the mapping executor; the caller's listeners still run on the main thread
+        List<String> chunk = batch.chunks.get(index);
+        get(mFirestore.collection(RECIPES_COLLECTION)
+                .whereIn(FieldPath.documentId(), chunk), batch.policy, chunk.size())
+                .addOnCompleteListener(AppExecutors.getInstance().mapping(), task -> {
+                    if (task.isSuccessful()) {
+                        for (Recipe recipe : RecipeCodec.fromQuery(task.getResult())) {
+                            batch.found.put(recipe.getId(), recipe);
+                        }
+                    } else {
+                        Log.e(TAG, "Error getting recipes by IDs", task.getException());
+                        batch.failure = task.getException();
+                        batch.failedChunks.incrementAndGet();
                     }
+                    
+                    if (batch.remainingChunks.decrementAndGet() > 0) {
+                        fetchNextIdChunk(batch);
+                    } else if (batch.failedChunks.get() > 0) {
+                        // A partial list would look like favorites were removed, so fail the whole call
+                        batch.result.setException(batch.failure);
+                    } else {
+                        batch.result.setResult(batch.inRequestedOrder());
+                    }
+                });
+    }
+    
+    /**
+     * State of one getRecipesByIds call
+     */
+    private static class IdBatch {
+        final List<String> requestedIds;
+        final List<List<String>> chunks;
+        final ReadPolicy policy;
+        final Map<String, Recipe> found = new ConcurrentHashMap<>();
+        final AtomicInteger nextChunk = new AtomicInteger();
+        final AtomicInteger remainingChunks;
+        final AtomicInteger failedChunks = new AtomicInteger();
+        final TaskCompletionSource<List<Recipe>> result = new TaskCompletionSource<>();
+        volatile Exception failure;
+        
+        IdBatch(List<String> requestedIds, List<List<String>> chunks, ReadPolicy policy) {
+            this.requestedIds = requestedIds;
+            this.chunks = chunks;
+            this.policy = policy;
+            this.remainingChunks = new AtomicInteger(chunks.size());
+        }
+        
+        List<Recipe> inRequestedOrder() {
+            List<Recipe> recipes = new ArrayList<>(found.size());
+            Set<String> added = new HashSet<>();
+            for (String id : requestedIds) {
+                Recipe recipe = found.get(id);
+                if (recipe != null && added.add(id)) {
+                    recipes.add(recipe);
                 }
             }
-            
             return recipes;
-        });
+        }
     }
     
     /**
      * Get favorite recipes for a user
      */
-    public Task<QuerySnapshot> getFavoriteRecipes(String userId) {
-        return mFirestore.collection(RECIPES_COLLECTION)
-                .whereArrayContains("favoriteUsers", userId)
-                .get();
+    public Task<QuerySnapshot> getFavoriteRecipes(String userId, ReadPolicy policy) {
+        return get(mFirestore.collection(RECIPES_COLLECTION)
+                .whereArrayContains("favoriteUsers", userId), policy);
+    }
+    
+    /**
+     * Run a query under a read policy. With {@link ReadPolicy#CACHE_FIRST} any non-empty
+     * cached result is used.
+     */
+    private static Task<QuerySnapshot> get(Query query, ReadPolicy policy) {
+        return get(query, policy, 1);
+    }
+    
+    /**
+     * Run a query under a read policy. With {@link ReadPolicy#CACHE_FIRST} the cached result
+     * is used if it has at least minCached documents; otherwise, or if the cache cannot answer,
+     * the query is sent with the default source, which still falls back to the cache offline.
+     */
+    private static Task<QuerySnapshot> get(Query query, ReadPolicy policy, int minCached) {
+        switch (policy) {
+            case CACHE_ONLY:
+                return query.get(Source.CACHE);
+            case DEFAULT:
+                return query.get(Source.DEFAULT);
+            case SERVER:
+                return query.get(Source.SERVER);
+            case CACHE_FIRST:
+            default:
+                return query.get(Source.CACHE).continueWithTask(task -> {
+                    if (task.isSuccessful() && task.getResult().size() >= minCached) {
+                        return task;
+                    }
+                    return query.get(Source.DEFAULT);
+                });
+        }
+    }
+    
+    /**
+     * Start a batch of writes that commit together
+     */
+    public WriteBatch newBatch() {
+        return mFirestore.batch();
     }
     
     /**
-     * Add or remove recipe from favorites
+     * Add and remove elements of array fields of a user document as part of a batch,
+     * e.g. favoriteRecipes or one category of userIngredients. All additions go into
+     * one update and all removals into another, so any number of changes to the
+     * document cost at most two writes.
      */
-    public Task<Void> toggleFavoriteRecipe(String userId, String recipeId, boolean isFavorite) {
-        // Update the user's favorite recipes list
+    public void addUserArrayUpdates(WriteBatch batch, String userId,
+                                    Map<FieldPath, List<String>> added, Map<FieldPath, List<String>> removed) {
         DocumentReference userRef = mFirestore.collection(USERS_COLLECTION).document(userId);
-        
-        if (isFavorite) {
-            return userRef.update("favoriteRecipes", com.google.firebase.firestore.FieldValue.arrayUnion(recipeId));
-        } else {
-            return userRef.update("favoriteRecipes", com.google.firebase.firestore.FieldValue.arrayRemove(recipeId));
+        addArrayUpdate(batch, userRef, added, true);
+        addArrayUpdate(batch, userRef, removed, false);
+    }
+    
+    private static void addArrayUpdate(WriteBatch batch, DocumentReference ref,
+                                       Map<FieldPath, List<String>> changes, boolean add) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        // update() takes the first field and value separately, then the rest as pairs
+        List<Object> fieldsAndValues = new ArrayList<>();
+        for (Map.Entry<FieldPath, List<String>> change : changes.entrySet()) {
+            Object[] elements = change.getValue().toArray();
+            fieldsAndValues.add(change.getKey());
+            fieldsAndValues.add(add ? FieldValue.arrayUnion(elements) : FieldValue.arrayRemove(elements));
         }
+        batch.update(ref, (FieldPath) fieldsAndValues.get(0), fieldsAndValues.get(1),
+                fieldsAndValues.subList(2, fieldsAndValues.size()).toArray());
     }
     
     /**
-     * Update recipe notes
+     * Set top-level fields of a user document as part of a batch, in a single update
      */
-    public Task<Void> updateRecipeNotes(String recipeId, String notes) {
-        return mFirestore.collection(RECIPES_COLLECTION)
-                .document(recipeId)
-                .update("notes", notes);
+    public void addUserFieldUpdates(WriteBatch batch, String userId, Map<String, Object> fields) {
+        if (fields.isEmpty()) {
+            return;
+        }
+        batch.update(mFirestore.collection(USERS_COLLECTION).document(userId), fields);
     }
     
-    // Storage methods
+    /**
+     * Update recipe notes as part of a batch
+     */
+    public void addRecipeNotesUpdate(WriteBatch batch, String recipeId, String notes) {
+        DocumentReference recipeRef = mFirestore.collection(RECIPES_COLLECTION).document(recipeId);
+        batch.update(recipeRef, "notes", notes, "updatedAt", FieldValue.serverTimestamp());
+    }
     
     /**
-     * Upload recipe image to Firebase Storage
+     * Delete a recipe by turning it into a tombstone. Clients syncing by updatedAt only
+     * see documents that still exist, so the deletion has to stay behind as a write.
      */
-    public UploadTask uploadRecipeImage(Uri imageUri, String recipeId) {
-        StorageReference storageRef = mStorage.getReference();
-        StorageReference imagesRef = storageRef.child("recipe_images/" + recipeId + ".jpg");
-        
-        return imagesRef.putFile(imageUri);
+    public Task<Void> deleteRecipe(String recipeId) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("deleted", true);
+        updates.put("updatedAt", FieldValue.serverTimestamp());
+        return mFirestore.collection(RECIPES_COLLECTION)
+                .document(recipeId)
+                .update(updates);
     }
     
     /**
-     * Get recipe image download URL
+     * Point a recipe at its uploaded image variants
      */
-    public Task<Uri> getRecipeImageUrl(String recipeId) {
-        StorageReference storageRef = mStorage.getReference();
-        StorageReference imageRef = storageRef.child("recipe_images/" + recipeId + ".jpg");
-        
-        return imageRef.getDownloadUrl();
+    public Task<Void> updateRecipeImages(String recipeId, String imageUrl, Map<String, String> imageVariants) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("imageUrl", imageUrl);
+        updates.put("imageVariants", imageVariants);
+        updates.put("updatedAt", FieldValue.serverTimestamp());
+        return mFirestore.collection(RECIPES_COLLECTION)
+                .document(recipeId)
+                .update(updates);
     }
     
+    // Storage methods
+    
     /**
      * Upload user profile image to Firebase Storage
      */
@@ -3,7 +3,11 @@ package com.example.foodrecipe.util;
 import android.net.Uri;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
 import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageMetadata;
 import com.google.firebase.storage.StorageReference;
 import com.google.firebase.storage.UploadTask;
 
@@ -45,6 +49,21 @@ public class FirebaseStorageHelper {
         });
     }
 
+    /**
+     * Upload a local file. Pass the session URI of an earlier attempt to resume it
+     * from the last chunk the server acknowledged instead of from the start.
+     */
+    public UploadTask uploadFile(String path, Uri fileUri, String contentType, @Nullable Uri sessionUri) {
+        StorageMetadata metadata = new StorageMetadata.Builder()
+                .setContentType(contentType)
+                .build();
+        return storage.getReference().child(path).putFile(fileUri, metadata, sessionUri);
+    }
+
+    public Task<Uri> getDownloadUrl(String path) {
+        return storage.getReference().child(path).getDownloadUrl();
+    }
+
     public void deleteImage(String path) {
         if (path == null || path.isEmpty()) {
             return;
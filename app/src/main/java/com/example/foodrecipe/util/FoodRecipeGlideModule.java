@@ -0,0 +1,51 @@
+package com.example.foodrecipe.util;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+/**
+ * Glide configuration for the app. All images go through {@link ImageLoader},
+ * which relies on the caches configured here.
+ */
+@GlideModule
+public class FoodRecipeGlideModule extends AppGlideModule {
+
+    // Decoded images kept in memory, in screens worth of pixels
+    private static final float MEMORY_CACHE_SCREENS = 2;
+    // Bitmaps kept for reuse by later decodes, in screens worth of pixels
+    private static final float BITMAP_POOL_SCREENS = 3;
+    // Transformed images kept on disk
+    private static final long DISK_CACHE_SIZE = 150L * 1024 * 1024;
+    private static final String DISK_CACHE_NAME = "image_cache";
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(MEMORY_CACHE_SCREENS)
+                .setBitmapPoolScreens(BITMAP_POOL_SCREENS)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(calculator.getMemoryCacheSize()));
+        builder.setBitmapPool(new LruBitmapPool(calculator.getBitmapPoolSize()));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_NAME, DISK_CACHE_SIZE));
+
+        // Full colour by default; list thumbnails opt into RGB_565 in ImageLoader
+        builder.setDefaultRequestOptions(new RequestOptions().format(DecodeFormat.PREFER_ARGB_8888));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        // No library modules are declared in the manifest, so skip the scan at startup
+        return false;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.foodrecipe.util;
+
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.widget.ImageView;
+
+import androidx.annotation.DrawableRes;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+
+import java.util.Map;
+
+/**
+ * Single entry point for loading images into views.
+ * Every request is sized to its target view, so only as many pixels as are
+ * shown are decoded and cached.
+ */
+public final class ImageLoader {
+
+    private ImageLoader() {
+    }
+
+    /**
+     * Load a list thumbnail. Thumbnails are decoded as RGB_565, half the memory of full colour.
+     */
+    public static void loadThumbnail(ImageView view, String url, @DrawableRes int placeholder) {
+        if (isEmpty(url)) {
+            showPlaceholder(view, placeholder);
+            return;
+        }
+        sizedToView(view, Glide.with(view).load(url))
+                .format(DecodeFormat.PREFER_RGB_565)
+                .placeholder(placeholder)
+                .error(placeholder)
+                .centerCrop()
+                .into(view);
+    }
+
+    /**
+     * Load a list thumbnail from the smallest size variant that covers the view
+     */
+    public static void loadThumbnail(ImageView view, Map<String, String> variantUrls, String url,
+                                     @DrawableRes int placeholder) {
+        loadThumbnail(view, ImageVariants.pick(variantUrls, url, targetWidth(view)), placeholder);
+    }
+
+    /**
+     * Load a full-colour image for a detail screen from the size variant that covers the view
+     */
+    public static void loadImage(ImageView view, Map<String, String> variantUrls, String url,
+                                 @DrawableRes int placeholder) {
+        loadImage(view, ImageVariants.pick(variantUrls, url, targetWidth(view)), placeholder);
+    }
+
+    /**
+     * Load a full-colour image for a detail screen
+     */
+    public static void loadImage(ImageView view, String url, @DrawableRes int placeholder) {
+        if (isEmpty(url)) {
+            showPlaceholder(view, placeholder);
+            return;
+        }
+        sizedToView(view, Glide.with(view).load(url))
+                .placeholder(placeholder)
+                .error(placeholder)
+                .centerCrop()
+                .into(view);
+    }
+
+    /**
+     * Load a circular profile picture. The placeholder stays when there is no url.
+     */
+    public static void loadAvatar(ImageView view, String url, @DrawableRes int placeholder) {
+        if (isEmpty(url)) {
+            return;
+        }
+        sizedToView(view, Glide.with(view).load(url))
+                .placeholder(placeholder)
+                .error(placeholder)
+                .circleCrop()
+                .into(view);
+    }
+
+    /**
+     * Preview a local image the user just picked. It is read straight from the
+     * content provider, so it is not written to the disk cache.
+     */
+    public static void loadLocal(ImageView view, Uri uri) {
+        sizedToView(view, Glide.with(view).load(uri))
+                .diskCacheStrategy(DiskCacheStrategy.NONE)
+                .centerCrop()
+                .into(view);
+    }
+
+    // Views that are already laid out skip Glide's wait for a layout pass
+    private static RequestBuilder<Drawable> sizedToView(ImageView view, RequestBuilder<Drawable> request) {
+        if (view.getWidth() > 0 && view.getHeight() > 0) {
+            return request.override(view.getWidth(), view.getHeight());
+        }
+        return request;
+    }
+
+    // Before the first layout the view's width is unknown; assume it may span the screen
+    private static int targetWidth(ImageView view) {
+        if (view.getWidth() > 0) {
+            return view.getWidth();
+        }
+        if (view.getLayoutParams() != null && view.getLayoutParams().width > 0) {
+            return view.getLayoutParams().width;
+        }
+        return view.getResources().getDisplayMetrics().widthPixels;
+    }
+
+    // Cancel any request still loading into a recycled view before showing the placeholder
+    private static void showPlaceholder(ImageView view, @DrawableRes int placeholder) {
+        Glide.with(view).clear(view);
+        view.setImageResource(placeholder);
+    }
+
+    private static boolean isEmpty(String url) {
+        return url == null || url.isEmpty();
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.foodrecipe.util;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.OpenableColumns;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Prepares picked images for upload. Images are decoded with just enough subsampling
+ * for the maximum dimension, turned upright from their EXIF orientation and
+ * re-encoded as WebP (JPEG before Android 11). Re-encoding drops all EXIF data,
+ * including location.
+ * All methods do disk and CPU work; never call them on the main thread.
+ */
+public class ImagePreprocessor {
+
+    public static final int DEFAULT_MAX_DIMENSION = 1440;
+    public static final int DEFAULT_QUALITY = 80;
+
+    private final int maxDimension;
+    private final int quality;
+
+    public ImagePreprocessor() {
+        this(DEFAULT_MAX_DIMENSION, DEFAULT_QUALITY);
+    }
+
+    /**
+     * @param maxDimension longest edge of the decoded image in pixels
+     * @param quality encoder quality from 0 to 100
+     */
+    public ImagePreprocessor(int maxDimension, int quality) {
+        this.maxDimension = maxDimension;
+        this.quality = quality;
+    }
+
+    /**
+     * Decode the image upright, with its longest edge at most the maximum dimension
+     */
+    public Bitmap decode(ContentResolver resolver, Uri imageUri) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream in = resolver.openInputStream(imageUri)) {
+            BitmapFactory.decodeStream(in, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Cannot decode image " + imageUri);
+        }
+
+        // Largest power-of-two subsampling that still keeps the longest edge >= maxDimension
+        int longestEdge = Math.max(options.outWidth, options.outHeight);
+        int sampleSize = 1;
+        while (longestEdge / (sampleSize * 2) >= maxDimension) {
+            sampleSize *= 2;
+        }
+
+        options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+        Bitmap sampled;
+        try (InputStream in = resolver.openInputStream(imageUri)) {
+            sampled = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (sampled == null) {
+            throw new IOException("Cannot decode image " + imageUri);
+        }
+
+        Bitmap scaled = scaleDown(sampled, maxDimension);
+        if (scaled != sampled) {
+            sampled.recycle();
+        }
+        return rotateUpright(scaled, readOrientation(resolver, imageUri));
+    }
+
+    /**
+     * Encode the bitmap at the configured quality
+     */
+    public byte[] encode(Bitmap bitmap) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(compressFormat(), quality, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * MIME type of the bytes returned by {@link #encode}
+     */
+    public String getMimeType() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R ? "image/webp" : "image/jpeg";
+    }
+
+    /**
+     * File extension, without the dot, of the bytes returned by {@link #encode}
+     */
+    public String getFileExtension() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R ? "webp" : "jpg";
+    }
+
+    /**
+     * Size of the original file in bytes, or -1 if the provider does not report it
+     */
+    public static long sizeOf(ContentResolver resolver, Uri imageUri) {
+        try (Cursor cursor = resolver.query(imageUri, new String[]{OpenableColumns.SIZE}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            }
+        } catch (RuntimeException e) {
+            // Some providers reject the projection; the size is only used for logging
+        }
+        return -1;
+    }
+
+    /**
+     * Scale the bitmap so its longest edge is at most maxDimension. Returns the same
+     * bitmap when it is already small enough.
+     */
+    public static Bitmap scaleDown(Bitmap source, int maxDimension) {
+        int longestEdge = Math.max(source.getWidth(), source.getHeight());
+        if (longestEdge <= maxDimension) {
+            return source;
+        }
+        float scale = (float) maxDimension / longestEdge;
+        int width = Math.max(1, Math.round(source.getWidth() * scale));
+        int height = Math.max(1, Math.round(source.getHeight() * scale));
+        return Bitmap.createScaledBitmap(source, width, height, true);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat compressFormat() {
+        // The WebP encoder before Android 11 is slow and its quality setting is not comparable
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.JPEG;
+    }
+
+    private static int readOrientation(ContentResolver resolver, Uri imageUri) {
+        try (InputStream in = resolver.openInputStream(imageUri)) {
+            if (in == null) {
+                return ExifInterface.ORIENTATION_NORMAL;
+            }
+            return new ExifInterface(in).getAttributeInt(ExifInterface.TAG_ORIENTATION,
+                    ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException e) {
+            // Formats without EXIF, such as PNG, are already upright
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    private static Bitmap rotateUpright(Bitmap bitmap, int orientation) {
+        Matrix matrix = new Matrix();
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.setScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.setRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.setScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.setRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.setRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.setRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.setRotate(-90);
+                break;
+            default:
+                return bitmap;
+        }
+        Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        if (rotated != bitmap) {
+            bitmap.recycle();
+        }
+        return rotated;
+    }
+}
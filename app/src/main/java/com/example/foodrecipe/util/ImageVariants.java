@@ -0,0 +1,74 @@
+package com.example.foodrecipe.util;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size variants of a recipe image. Each picked image is resized on the device into
+ * a thumbnail, a card and a hero image before upload, and views load the smallest
+ * variant that covers them instead of the original file.
+ */
+public final class ImageVariants {
+
+    public static final String THUMB = "thumb";
+    public static final String CARD = "card";
+    public static final String HERO = "hero";
+
+    // Variant names with the longest edge of each in pixels, smallest first
+    private static final String[] NAMES = {THUMB, CARD, HERO};
+    private static final int[] MAX_DIMENSIONS = {320, 720, 1440};
+
+    private ImageVariants() {
+    }
+
+    /**
+     * Decode the image once and encode every variant, keyed by variant name.
+     * The hero variant is also capped by the preprocessor's maximum dimension.
+     * Does disk and CPU work; never call it on the main thread.
+     */
+    public static Map<String, byte[]> encode(ImagePreprocessor preprocessor, ContentResolver resolver,
+                                             Uri imageUri) throws IOException {
+        Bitmap source = preprocessor.decode(resolver, imageUri);
+
+        Map<String, byte[]> variants = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < NAMES.length; i++) {
+                Bitmap scaled = ImagePreprocessor.scaleDown(source, MAX_DIMENSIONS[i]);
+                variants.put(NAMES[i], preprocessor.encode(scaled));
+                if (scaled != source) {
+                    scaled.recycle();
+                }
+            }
+        } finally {
+            source.recycle();
+        }
+        return variants;
+    }
+
+    /**
+     * URL of the smallest variant at least as wide as the target, the largest variant
+     * if none is, or the fallback URL for recipes uploaded before variants existed
+     */
+    public static String pick(Map<String, String> variantUrls, String fallbackUrl, int targetWidth) {
+        if (variantUrls == null || variantUrls.isEmpty()) {
+            return fallbackUrl;
+        }
+        String largest = null;
+        for (int i = 0; i < NAMES.length; i++) {
+            String url = variantUrls.get(NAMES[i]);
+            if (url == null) {
+                continue;
+            }
+            if (MAX_DIMENSIONS[i] >= targetWidth) {
+                return url;
+            }
+            largest = url;
+        }
+        return largest != null ? largest : fallbackUrl;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.foodrecipe.util;
+
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Measures where the time of a query result goes: mapping documents on the
+ * mapping executor, and delivering the result to observers on the main thread.
+ * Each query gets a main-thread budget; going over it is logged as a warning.
+ */
+public final class QueryTiming {
+    private static final String TAG = "QueryTiming";
+
+    // Main-thread time one query result may take, about a third of a 60 fps frame
+    public static final long MAIN_THREAD_BUDGET_MS = 5;
+
+    private QueryTiming() {
+    }
+
+    /**
+     * Start timestamp for {@link #logMapping}
+     */
+    public static long start() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    /**
+     * Log how long a query result took to map
+     */
+    public static void logMapping(String queryName, int documentCount, long startNanos) {
+        long elapsedMs = (SystemClock.elapsedRealtimeNanos() - startNanos) / 1_000_000;
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            Log.w(TAG, queryName + ": mapped " + documentCount + " documents on the main thread in "
+                    + elapsedMs + " ms");
+        } else {
+            Log.d(TAG, queryName + ": mapped " + documentCount + " documents in " + elapsedMs + " ms");
+        }
+    }
+
+    /**
+     * Deliver a query result on the main thread and measure how long observers take.
+     * This is what postValue does, plus the budget check.
+     */
+    public static void deliverOnMainThread(String queryName, Runnable delivery) {
+        AppExecutors.getInstance().mainThread().execute(() -> {
+            long start = SystemClock.elapsedRealtimeNanos();
+            delivery.run();
+            long elapsedMs = (SystemClock.elapsedRealtimeNanos() - start) / 1_000_000;
+            if (elapsedMs > MAIN_THREAD_BUDGET_MS) {
+                Log.w(TAG, queryName + ": main thread took " + elapsedMs + " ms, budget is "
+                        + MAIN_THREAD_BUDGET_MS + " ms");
+            }
+        });
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.foodrecipe.util;
+
+/**
+ * Where a Firestore query is answered from
+ */
+public enum ReadPolicy {
+    /**
+     * The local cache, going to the server only when the cache cannot answer the query
+     */
+    CACHE_FIRST,
+    /**
+     * The server when it can be reached, otherwise the local cache
+     */
+    DEFAULT,
+    /**
+     * The local cache only; never waits for the network
+     */
+    CACHE_ONLY,
+    /**
+     * The server only; fails when offline instead of returning cached documents
+     */
+    SERVER
+}
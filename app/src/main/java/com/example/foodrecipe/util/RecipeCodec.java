@@ -0,0 +1,189 @@
+package com.example.foodrecipe.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.foodrecipe.model.Recipe;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps recipe documents to {@link Recipe} objects by reading the document data directly.
+ * Replaces toObject(Recipe.class), which goes through Firestore's reflective mapper and
+ * is the main CPU cost when mapping large result sets.
+ */
+public final class RecipeCodec {
+
+    // Firestore field names
+    static final String FIELD_NAME = "name";
+    static final String FIELD_DESCRIPTION = "description";
+    static final String FIELD_IMAGE_URL = "imageUrl";
+    static final String FIELD_IMAGE_VARIANTS = "imageVariants";
+    static final String FIELD_VIDEO_ID = "videoId";
+    static final String FIELD_COOKING_TIME = "cookingTime";
+    // Written by toObject/set() because the getter is getCookingTimeMinutes()
+    static final String FIELD_COOKING_TIME_MINUTES = "cookingTimeMinutes";
+    static final String FIELD_SERVING_SIZE = "servingSize";
+    static final String FIELD_CATEGORY = "category";
+    static final String FIELD_NUTRITION_VALUES = "nutritionValues";
+    static final String FIELD_INGREDIENTS = "ingredients";
+    static final String FIELD_INSTRUCTIONS = "instructions";
+    static final String FIELD_TAGS = "tags";
+    static final String FIELD_CREATED_BY = "createdBy";
+    static final String FIELD_CREATED_AT = "createdAt";
+    static final String FIELD_UPDATED_AT = "updatedAt";
+    static final String FIELD_LIKES_COUNT = "likesCount";
+    static final String FIELD_NOTES = "notes";
+    static final String FIELD_DELETED = "deleted";
+
+    static final String INGREDIENT_NAME = "name";
+    static final String INGREDIENT_QUANTITY = "quantity";
+    static final String INGREDIENT_UNIT = "unit";
+    static final String INGREDIENT_CATEGORY = "category";
+
+    private RecipeCodec() {
+    }
+
+    /**
+     * Map a single document, or return null if it does not exist
+     */
+    @Nullable
+    public static Recipe fromSnapshot(@NonNull DocumentSnapshot document) {
+        Map<String, Object> data = document.getData();
+        if (data == null) {
+            return null;
+        }
+        return fromMap(document.getId(), data);
+    }
+
+    /**
+     * The server-assigned updatedAt of a document in epoch millis, or 0 if it has none yet.
+     * Older app versions wrote updatedAt from the client clock as a number; those values
+     * are ignored, since they are not comparable with server time.
+     */
+    public static long serverUpdatedAt(@NonNull DocumentSnapshot document) {
+        Object value = document.get(FIELD_UPDATED_AT);
+        return value instanceof Timestamp ? ((Timestamp) value).toDate().getTime() : 0;
+    }
+
+    /**
+     * Map every live document of a query result, in query order. Tombstones are skipped.
+     */
+    @NonNull
+    public static List<Recipe> fromQuery(@NonNull QuerySnapshot snapshot) {
+        List<DocumentSnapshot> documents = snapshot.getDocuments();
+        List<Recipe> recipes = new ArrayList<>(documents.size());
+        for (DocumentSnapshot document : documents) {
+            Recipe recipe = fromSnapshot(document);
+            if (recipe != null && !recipe.isDeleted()) {
+                recipes.add(recipe);
+            }
+        }
+        return recipes;
+    }
+
+    /**
+     * Map raw document data. Unknown fields are ignored and fields with an
+     * unexpected type are left at their defaults, like toObject does for missing fields.
+     */
+    @NonNull
+    public static Recipe fromMap(@Nullable String id, @NonNull Map<String, Object> data) {
+        Recipe recipe = new Recipe();
+        recipe.setId(id);
+        recipe.setName(asString(data.get(FIELD_NAME)));
+        recipe.setDescription(asString(data.get(FIELD_DESCRIPTION)));
+        recipe.setImageUrl(asString(data.get(FIELD_IMAGE_URL)));
+        recipe.setImageVariants(asStringMap(data.get(FIELD_IMAGE_VARIANTS)));
+        recipe.setVideoId(asString(data.get(FIELD_VIDEO_ID)));
+
+        Object cookingTime = data.get(FIELD_COOKING_TIME);
+        if (cookingTime == null) {
+            cookingTime = data.get(FIELD_COOKING_TIME_MINUTES);
+        }
+        recipe.setCookingTime((int) asLong(cookingTime));
+
+        recipe.setServingSize((int) asLong(data.get(FIELD_SERVING_SIZE)));
+        recipe.setCategory(asString(data.get(FIELD_CATEGORY)));
+        recipe.setNutritionValues(asStringMap(data.get(FIELD_NUTRITION_VALUES)));
+        recipe.setIngredients(asIngredients(data.get(FIELD_INGREDIENTS)));
+        recipe.setInstructions(asStringList(data.get(FIELD_INSTRUCTIONS)));
+        recipe.setTags(asStringList(data.get(FIELD_TAGS)));
+        recipe.setCreatedBy(asString(data.get(FIELD_CREATED_BY)));
+        recipe.setCreatedAt(asLong(data.get(FIELD_CREATED_AT)));
+        recipe.setUpdatedAt(asLong(data.get(FIELD_UPDATED_AT)));
+        recipe.setLikesCount((int) asLong(data.get(FIELD_LIKES_COUNT)));
+        recipe.setNotes(asString(data.get(FIELD_NOTES)));
+        recipe.setDeleted(Boolean.TRUE.equals(data.get(FIELD_DELETED)));
+        return recipe;
+    }
+
+    private static String asString(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static long asLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toDate().getTime();
+        }
+        return 0;
+    }
+
+    private static List<String> asStringList(Object value) {
+        List<String> result = new ArrayList<>();
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                if (item instanceof String) {
+                    result.add((String) item);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, String> asStringMap(Object value) {
+        if (!(value instanceof Map)) {
+            return null;
+        }
+        Map<?, ?> source = (Map<?, ?>) value;
+        Map<String, String> result = new HashMap<>(source.size() * 2);
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            if (entry.getKey() instanceof String && entry.getValue() != null) {
+                result.put((String) entry.getKey(), entry.getValue().toString());
+            }
+        }
+        return result;
+    }
+
+    private static List<Recipe.Ingredient> asIngredients(Object value) {
+        List<Recipe.Ingredient> result = new ArrayList<>();
+        if (!(value instanceof List)) {
+            return result;
+        }
+        for (Object item : (List<?>) value) {
+            if (item instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) item;
+                result.add(new Recipe.Ingredient(
+                        asString(map.get(INGREDIENT_NAME)),
+                        asString(map.get(INGREDIENT_QUANTITY)),
+                        asString(map.get(INGREDIENT_UNIT)),
+                        asString(map.get(INGREDIENT_CATEGORY))));
+            } else if (item instanceof String) {
+                // Older documents stored ingredients as plain strings
+                Recipe.Ingredient ingredient = new Recipe.Ingredient();
+                ingredient.setName((String) item);
+                ingredient.setCategory("Other");
+                result.add(ingredient);
+            }
+        }
+        return result;
+    }
+}
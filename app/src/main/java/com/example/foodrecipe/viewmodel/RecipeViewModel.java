@@ -1,32 +1,57 @@
 package com.example.foodrecipe.viewmodel;
 
+import android.app.Application;
 import android.net.Uri;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.ViewModel;
 
 import com.example.foodrecipe.model.Recipe;
+import com.example.foodrecipe.repository.RecipePager;
 import com.example.foodrecipe.repository.RecipeRepository;
+import com.example.foodrecipe.search.RecipeQuery;
+import com.example.foodrecipe.util.FirebaseHelper;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * ViewModel for recipe-related operations.
  */
-public class RecipeViewModel extends ViewModel {
+public class RecipeViewModel extends AndroidViewModel {
     private final RecipeRepository recipeRepository;
+    private final RecipePager recipePager;
     
-    public RecipeViewModel() {
-        recipeRepository = new RecipeRepository();
+    public RecipeViewModel(@NonNull Application application) {
+        super(application);
+        recipeRepository = RecipeRepository.getInstance(application);
+        recipePager = recipeRepository.createRecipePager(FirebaseHelper.DEFAULT_PAGE_SIZE);
     }
     
     /**
-     * Get all recipes
+     * Get all recipes, shared with every other screen
      */
     public LiveData<List<Recipe>> getAllRecipes() {
         return recipeRepository.getAllRecipes();
     }
     
+    /**
+     * Make sure the shared recipe stream is listening
+     */
+    public void refreshAllRecipes() {
+        recipeRepository.refreshAllRecipes();
+    }
+    
+    /**
+     * Get the shared pager over all recipes, newest first
+     */
+    public RecipePager getRecipePager() {
+        return recipePager;
+    }
+    
     /**
      * Get recipes by category
      */
@@ -55,6 +80,34 @@ public class RecipeViewModel extends ViewModel {
         return recipeRepository.searchRecipesByName(query);
     }
     
+    /**
+     * Full-text search over cached recipes, best matches first
+     */
+    public LiveData<List<Recipe>> searchRecipes(String query, int limit) {
+        return recipeRepository.searchRecipes(query, limit);
+    }
+    
+    /**
+     * Number of cached recipes per category and per tag, for filter chips
+     */
+    public LiveData<Map<String, Integer>> getFacetCounts(List<String> categories, List<String> tags) {
+        return recipeRepository.getFacetCounts(categories, tags);
+    }
+    
+    /**
+     * Filter cached recipes with a structured query
+     */
+    public LiveData<List<Recipe>> filterRecipes(RecipeQuery query) {
+        return recipeRepository.filterRecipes(query);
+    }
+    
+    /**
+     * Suggest recipes that use the given ingredients, best matches first
+     */
+    public LiveData<List<Recipe>> suggestRecipes(Collection<String> ingredients, int limit) {
+        return recipeRepository.suggestRecipes(ingredients, limit);
+    }
+    
     /**
      * Get favorite recipes
      */
@@ -70,17 +123,10 @@ public class RecipeViewModel extends ViewModel {
     }
     
     /**
-     * Add a new recipe
-     */
-    public LiveData<String> addRecipe(Recipe recipe) {
-        return recipeRepository.addRecipe(recipe);
-    }
-    
-    /**
-     * Upload recipe image
+     * Add a new recipe, uploading its image in the background when there is one
      */
-    public LiveData<String> uploadRecipeImage(Uri imageUri, String recipeId) {
-        return recipeRepository.uploadRecipeImage(imageUri, recipeId);
+    public LiveData<String> addRecipe(Recipe recipe, @Nullable Uri imageUri) {
+        return recipeRepository.addRecipe(recipe, imageUri);
     }
     
     /**
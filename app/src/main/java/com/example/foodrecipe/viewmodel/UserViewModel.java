@@ -1,9 +1,11 @@
 package com.example.foodrecipe.viewmodel;
 
+import android.app.Application;
 import android.net.Uri;
 
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.ViewModel;
 
 import com.example.foodrecipe.model.Recipe;
 import com.example.foodrecipe.model.User;
@@ -16,11 +18,12 @@ import java.util.List;
 /**
  * ViewModel for user-related operations.
  */
-public class UserViewModel extends ViewModel {
+public class UserViewModel extends AndroidViewModel {
     private final UserRepository userRepository;
     
-    public UserViewModel() {
-        userRepository = new UserRepository();
+    public UserViewModel(@NonNull Application application) {
+        super(application);
+        userRepository = new UserRepository(application);
     }
     
     /**
@@ -0,0 +1,98 @@
+package com.example.foodrecipe.adapter;
+
+import com.example.foodrecipe.model.Recipe;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Guards the no-format-on-bind property of the row model: every string a row shows is
+ * computed when the model is built, so reading it back allocates nothing. This covers the
+ * model's share of onBindViewHolder only; the adapters' bind path, which also hands the
+ * image to Glide, is not run here.
+ */
+public class RecipeRowModelTest {
+
+    private static final int READS = 100_000;
+
+    @Test
+    public void fromRecipes_formatsEveryBoundString() {
+        Recipe recipe = new Recipe("Soup", repeat('x', 150), 25, 4, "Dinner");
+        RecipeRowModel row = RecipeRowModel.fromRecipes(Arrays.asList(recipe)).get(0);
+
+        assertEquals("25 min", row.getCookingTimeText());
+        assertEquals("4 servings", row.getServingSizeText());
+        assertEquals(100, row.getShortDescription().length());
+        assertTrue(row.getShortDescription().endsWith("..."));
+    }
+
+    @Test
+    public void getters_returnTheSameInstances() {
+        RecipeRowModel row = RecipeRowModel.fromRecipes(Arrays.asList(
+                new Recipe("Soup", repeat('x', 150), 25, 4, "Dinner"))).get(0);
+
+        assertSame(row.getCookingTimeText(), row.getCookingTimeText());
+        assertSame(row.getServingSizeText(), row.getServingSizeText());
+        assertSame(row.getShortDescription(), row.getShortDescription());
+    }
+
+    @Test
+    public void rowModelGetters_doNotAllocate() {
+        Assume.assumeTrue("Allocation counting is not available on this JVM", allocationCountingSupported());
+        List<RecipeRowModel> rows = RecipeRowModel.fromRecipes(Arrays.asList(
+                new Recipe("Soup", repeat('x', 150), 25, 4, "Dinner"),
+                new Recipe("Salad", "Fresh", 10, 2, "Lunch")));
+
+        // Warm up so class loading and compilation are not counted
+        readAll(rows, READS);
+        long before = allocatedBytes();
+        int checksum = readAll(rows, READS);
+        long allocated = allocatedBytes() - before;
+
+        // The JVM itself may allocate a few hundred bytes while counting; a single object per
+        // read would be at least 16 bytes each time, so anything below one byte per read is none
+        assertTrue(checksum != 0);
+        assertTrue("Allocated " + allocated + " bytes reading " + READS + " rows", allocated < READS);
+    }
+
+    // Reads every value a bind takes from the model; the checksum keeps the calls from being optimized away
+    private static int readAll(List<RecipeRowModel> rows, int reads) {
+        int checksum = 0;
+        for (int i = 0; i < reads; i++) {
+            RecipeRowModel row = rows.get(i % rows.size());
+            checksum += System.identityHashCode(row.getName())
+                    + System.identityHashCode(row.getCookingTimeText())
+                    + System.identityHashCode(row.getServingSizeText())
+                    + System.identityHashCode(row.getShortDescription())
+                    + System.identityHashCode(row.getCategory())
+                    + System.identityHashCode(row.getImageUrl())
+                    + System.identityHashCode(row.getImageVariants());
+        }
+        return checksum;
+    }
+
+    private static boolean allocationCountingSupported() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return false;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
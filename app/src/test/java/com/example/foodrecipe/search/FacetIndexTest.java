@@ -0,0 +1,91 @@
+package com.example.foodrecipe.search;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
+
+import static com.example.foodrecipe.search.TestRecipes.filterable;
+import static org.junit.Assert.*;
+
+public class FacetIndexTest {
+
+    @Test
+    public void count_countsOnlyCandidates() {
+        FacetIndex<String> facets = new FacetIndex<>();
+        int vegan = facets.intern("vegan");
+        int quick = facets.intern("quick");
+        facets.set(vegan, 1);
+        facets.set(vegan, 70);
+        facets.set(vegan, 200);
+        facets.set(quick, 70);
+
+        BitSet candidates = bits(1, 70, 71);
+        int[] counts = facets.count(Arrays.asList("vegan", "quick", "unknown"), candidates);
+
+        assertArrayEquals(new int[]{2, 1, 0}, counts);
+    }
+
+    @Test
+    public void matchAll_intersectsAcrossWords() {
+        FacetIndex<String> facets = new FacetIndex<>();
+        int vegan = facets.intern("vegan");
+        int quick = facets.intern("quick");
+        facets.set(vegan, 3);
+        facets.set(vegan, 130);
+        facets.set(quick, 130);
+        facets.set(quick, 5);
+
+        assertEquals(bits(130), facets.matchAll(Arrays.asList("vegan", "quick"), bits(3, 5, 130)));
+        assertEquals(new BitSet(), facets.matchAll(Arrays.asList("vegan", "unknown"), bits(3, 130)));
+    }
+
+    @Test
+    public void clear_removesTheOrdinal() {
+        FacetIndex<String> facets = new FacetIndex<>();
+        int vegan = facets.intern("vegan");
+        facets.set(vegan, 64);
+        facets.clear(vegan, 64);
+        // Clearing beyond the current capacity is a no-op
+        facets.clear(vegan, 10_000);
+
+        assertEquals(new BitSet(), facets.get("vegan"));
+        assertEquals(-1, facets.idOf("unknown"));
+    }
+
+    @Test
+    public void filterIndexCounts_followTheQueryAndUpdates() {
+        RecipeFilterIndex index = new RecipeFilterIndex();
+        index.putAll(Arrays.asList(
+                filterable("salad", "Lunch", 10, 2, "Vegetarian", "Quick"),
+                filterable("curry", "Dinner", 45, 4, "vegetarian"),
+                filterable("steak", "Dinner", 25, 2, "Quick")));
+
+        Map<String, Integer> categories = index.categoryCounts(RecipeQuery.all(),
+                Arrays.asList("Lunch", "Dinner", "Dessert"));
+        assertEquals(Integer.valueOf(1), categories.get("Lunch"));
+        assertEquals(Integer.valueOf(2), categories.get("Dinner"));
+        assertEquals(Integer.valueOf(0), categories.get("Dessert"));
+
+        Map<String, Integer> tags = index.tagCounts(RecipeQuery.category("Dinner"),
+                Arrays.asList("Vegetarian", "quick"));
+        assertEquals(Integer.valueOf(1), tags.get("Vegetarian"));
+        assertEquals(Integer.valueOf(1), tags.get("quick"));
+
+        index.remove("steak");
+        index.putAll(Collections.singletonList(filterable("curry", "Dinner", 45, 4, "Quick")));
+        tags = index.tagCounts(RecipeQuery.all(), Arrays.asList("vegetarian", "quick"));
+        assertEquals(Integer.valueOf(1), tags.get("vegetarian"));
+        assertEquals(Integer.valueOf(2), tags.get("quick"));
+    }
+
+    private static BitSet bits(int... ordinals) {
+        BitSet bits = new BitSet();
+        for (int ordinal : ordinals) {
+            bits.set(ordinal);
+        }
+        return bits;
+    }
+}
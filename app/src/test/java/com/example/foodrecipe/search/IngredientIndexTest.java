@@ -0,0 +1,95 @@
+package com.example.foodrecipe.search;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.example.foodrecipe.search.TestRecipes.ids;
+import static com.example.foodrecipe.search.TestRecipes.withIngredients;
+import static org.junit.Assert.*;
+
+public class IngredientIndexTest {
+
+    @Test
+    public void normalize_foldsCaseSpacesAndPlurals() {
+        assertEquals("tomato", IngredientIndex.normalize(" Tomatoes "));
+        assertEquals("berry", IngredientIndex.normalize("berries"));
+        assertEquals("onion", IngredientIndex.normalize("Onions"));
+        assertEquals("olive oil", IngredientIndex.normalize("olive   oil"));
+        assertEquals("pea", IngredientIndex.normalize("peas"));
+        // Not a plural
+        assertEquals("swiss", IngredientIndex.normalize("Swiss"));
+        assertEquals("", IngredientIndex.normalize(null));
+    }
+
+    @Test
+    public void suggest_matchesPluralsAgainstSingulars() {
+        IngredientIndex index = new IngredientIndex();
+        index.putAll(Collections.singletonList(withIngredients("salad", "Tomato", "Cucumber")));
+
+        assertEquals(Collections.singletonList("salad"), ids(index.suggest(Arrays.asList("tomatoes"), 10)));
+    }
+
+    @Test
+    public void suggest_ranksByMatchesThenCoverage() {
+        IngredientIndex index = new IngredientIndex();
+        index.putAll(Arrays.asList(
+                withIngredients("one", "egg", "flour", "sugar", "butter"),
+                withIngredients("twoOfFour", "egg", "milk", "salt", "pepper"),
+                withIngredients("twoOfTwo", "egg", "milk"),
+                withIngredients("none", "rice")));
+
+        assertEquals(Arrays.asList("twoOfTwo", "twoOfFour", "one"),
+                ids(index.suggest(Arrays.asList("eggs", "milk"), 10)));
+    }
+
+    @Test
+    public void suggest_respectsLimit() {
+        IngredientIndex index = new IngredientIndex();
+        index.putAll(Arrays.asList(
+                withIngredients("a", "egg"),
+                withIngredients("b", "egg"),
+                withIngredients("c", "egg")));
+
+        assertEquals(2, index.suggest(Collections.singletonList("egg"), 2).size());
+        assertTrue(index.suggest(Collections.singletonList("egg"), 0).isEmpty());
+        assertTrue(index.suggest(Collections.singletonList(" "), 10).isEmpty());
+    }
+
+    @Test
+    public void put_replacesTheRecipesIngredients() {
+        IngredientIndex index = new IngredientIndex();
+        index.putAll(Collections.singletonList(withIngredients("soup", "leek")));
+        index.putAll(Collections.singletonList(withIngredients("soup", "carrot")));
+
+        assertTrue(index.suggest(Collections.singletonList("leek"), 10).isEmpty());
+        assertEquals(Collections.singletonList("soup"), ids(index.suggest(Collections.singletonList("carrot"), 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void remove_dropsTheRecipeFromResults() {
+        IngredientIndex index = new IngredientIndex();
+        index.putAll(Arrays.asList(withIngredients("a", "egg"), withIngredients("b", "egg")));
+        index.remove("a");
+
+        assertEquals(Collections.singletonList("b"), ids(index.suggest(Collections.singletonList("egg"), 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void remove_freesOrdinalsForNewRecipes() {
+        IngredientIndex index = new IngredientIndex();
+        for (int i = 0; i < 100; i++) {
+            index.putAll(Collections.singletonList(withIngredients("r" + i, "egg")));
+            if (i > 0) {
+                index.remove("r" + (i - 1));
+            }
+        }
+
+        assertEquals(1, index.size());
+        assertEquals(2, index.ordinalCapacity());
+        assertEquals(Collections.singletonList("r99"), ids(index.suggest(Collections.singletonList("egg"), 10)));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.foodrecipe.search;
+
+import com.example.foodrecipe.model.Recipe;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.foodrecipe.search.TestRecipes.filterable;
+import static com.example.foodrecipe.search.TestRecipes.ids;
+import static org.junit.Assert.*;
+
+public class RecipeFilterIndexTest {
+
+    private RecipeFilterIndex index;
+
+    @Before
+    public void setUp() {
+        index = new RecipeFilterIndex();
+        index.putAll(Arrays.asList(
+                filterable("salad", "Lunch", 10, 2, "Vegetarian", "Quick"),
+                filterable("curry", "Dinner", 45, 4, "vegetarian", "Gluten Free"),
+                filterable("steak", "Dinner", 25, 2, "gluten-free"),
+                filterable("porridge", "Breakfast", 5, 1, "vegetarian", "quick")));
+    }
+
+    @Test
+    public void category_andCookingTimeRange() {
+        assertEquals(Collections.singletonList("steak"), sorted(index.filter(RecipeQuery.and(
+                RecipeQuery.category("Dinner"),
+                RecipeQuery.cookingTime(0, 30)))));
+    }
+
+    @Test
+    public void cookingTimeRange_isInclusive() {
+        assertEquals(Arrays.asList("salad", "steak"), sorted(index.filter(RecipeQuery.cookingTime(10, 25))));
+    }
+
+    @Test
+    public void servingsRange() {
+        assertEquals(Arrays.asList("salad", "steak"), sorted(index.filter(RecipeQuery.servings(2, 3))));
+    }
+
+    @Test
+    public void or_ofCategories() {
+        assertEquals(Arrays.asList("porridge", "salad"), sorted(index.filter(RecipeQuery.or(
+                RecipeQuery.category("Breakfast"),
+                RecipeQuery.category("Lunch")))));
+        assertEquals(4, index.filter(RecipeQuery.anyCategory(Collections.emptyList())).size());
+    }
+
+    @Test
+    public void and_ofOrs() {
+        // (Breakfast OR Dinner) AND (vegetarian) AND servings 1..4
+        assertEquals(Arrays.asList("curry", "porridge"), sorted(index.filter(RecipeQuery.and(
+                RecipeQuery.anyCategory(Arrays.asList("Breakfast", "Dinner")),
+                RecipeQuery.tag("Vegetarian"),
+                RecipeQuery.servings(1, 4)))));
+    }
+
+    @Test
+    public void tags_foldCaseAndPunctuation() {
+        assertEquals(Arrays.asList("curry", "steak"), sorted(index.filter(RecipeQuery.tag("GLUTEN free"))));
+        assertEquals(Collections.singletonList("curry"), sorted(index.filter(
+                RecipeQuery.allTags(Arrays.asList("vegetarian", "gluten-free")))));
+        assertTrue(index.filter(RecipeQuery.allTags(Arrays.asList("vegetarian", "vegan"))).isEmpty());
+    }
+
+    @Test
+    public void unknownCategory_matchesNothing() {
+        assertTrue(index.filter(RecipeQuery.category("Dessert")).isEmpty());
+    }
+
+    @Test
+    public void putAndRemove_updateResults() {
+        index.putAll(Collections.singletonList(filterable("salad", "Dinner", 60, 6)));
+        index.remove("porridge");
+
+        assertEquals(Arrays.asList("curry", "salad", "steak"), sorted(index.filter(RecipeQuery.category("Dinner"))));
+        assertEquals(Collections.singletonList("curry"), sorted(index.filter(RecipeQuery.tag("vegetarian"))));
+        assertEquals(Collections.singletonList("steak"), sorted(index.filter(RecipeQuery.cookingTime(0, 30))));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void remove_freesOrdinalsForNewRecipes() {
+        RecipeFilterIndex churned = new RecipeFilterIndex();
+        for (int i = 0; i < 100; i++) {
+            churned.putAll(Collections.singletonList(filterable("r" + i, "Dinner", i, 2, "quick")));
+            if (i > 0) {
+                churned.remove("r" + (i - 1));
+            }
+        }
+
+        assertEquals(2, churned.ordinalCapacity());
+        assertEquals(Collections.singletonList("r99"), ids(churned.filter(RecipeQuery.and(
+                RecipeQuery.tag("quick"), RecipeQuery.cookingTime(99, 99)))));
+    }
+
+    private static List<String> sorted(List<Recipe> recipes) {
+        List<String> ids = new ArrayList<>(ids(recipes));
+        Collections.sort(ids);
+        return ids;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.foodrecipe.search;
+
+import com.example.foodrecipe.model.Recipe;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.foodrecipe.search.TestRecipes.ids;
+import static com.example.foodrecipe.search.TestRecipes.recipe;
+import static org.junit.Assert.*;
+
+public class RecipeSearchEngineTest {
+
+    @Test
+    public void search_matchesExactWordsIgnoringCaseAndAccents() {
+        RecipeSearchEngine engine = new RecipeSearchEngine();
+        engine.putAll(Arrays.asList(recipe("1", "Crème Brûlée"), recipe("2", "Apple Pie")));
+
+        assertEquals(Collections.singletonList("1"), ids(engine.search("creme BRULEE", 10)));
+    }
+
+    @Test
+    public void search_matchesLastWordAsPrefix() {
+        RecipeSearchEngine engine = new RecipeSearchEngine();
+        engine.putAll(Arrays.asList(recipe("1", "Chicken Curry"), recipe("2", "Chickpea Salad")));
+
+        assertEquals(Arrays.asList("1", "2"), sorted(ids(engine.search("chick", 10))));
+        // Only the last word may be a prefix
+        assertTrue(engine.search("chick curry", 10).isEmpty());
+        assertEquals(Collections.singletonList("1"), ids(engine.search("curry chick", 10)));
+    }
+
+    @Test
+    public void search_matchesOneTypo() {
+        RecipeSearchEngine engine = new RecipeSearchEngine();
+        engine.putAll(Arrays.asList(recipe("1", "Lasagna"), recipe("2", "Risotto")));
+
+        assertEquals(Collections.singletonList("1"), ids(engine.search("lasagma", 10)));
+        assertEquals(Collections.singletonList("2"), ids(engine.search("risoto", 10)));
+        // Two edits are too many
+        assertTrue(engine.search("lazagma", 10).isEmpty());
+    }
+
+    @Test
+    public void search_requiresEveryWord() {
+        RecipeSearchEngine engine = new RecipeSearchEngine();
+        engine.putAll(Arrays.asList(recipe("1", "Tomato Soup"), recipe("2", "Tomato Salad")));
+
+        assertEquals(Collections.singletonList("2"), ids(engine.search("tomato salad", 10)));
+    }
+
+    @Test
+    public void search_ranksNameAboveDescriptionAndExactAboveFuzzy() {
+        RecipeSearchEngine engine = new RecipeSearchEngine();
+        Recipe inDescription = recipe("description", "Stew");
+        inDescription.setDescription("Served with rice");
+        Recipe inName = recipe("name", "Rice Bowl");
+        Recipe fuzzy = recipe("fuzzy", "Ricer Mash");
+        engine.putAll(Arrays.asList(inDescription, fuzzy, inName));
+
+        assertEquals(Arrays.asList("name", "fuzzy", "description"), ids(engine.search("rice", 10)));
+    }
+
+    @Test
+    public void search_keepsBestPrefixTermsWhenTruncated() {
+        RecipeSearchEngine engine = new RecipeSearchEngine();
+        List<Recipe> recipes = new ArrayList<>();
+        // Description terms that sort before "apple" in the trie and exceed the expansion cap
+        for (int i = 0; i < RecipeSearchEngine.MAX_EXPANSIONS + 50; i++) {
+            Recipe filler = recipe("filler" + i, "Dish");
+            filler.setDescription(String.format("a%03d", i));
+            recipes.add(filler);
+        }
+        recipes.add(recipe("apple", "Apple"));
+        engine.putAll(recipes);
+
+        List<String> results = ids(engine.search("a", 1000));
+        assertEquals("apple", results.get(0));
+        assertEquals(RecipeSearchEngine.MAX_EXPANSIONS, results.size());
+    }
+
+    @Test
+    public void search_keepsFuzzyMatchesWhenPrefixIsTruncated() {
+        RecipeSearchEngine engine = new RecipeSearchEngine();
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < RecipeSearchEngine.MAX_EXPANSIONS + 50; i++) {
+            Recipe filler = recipe("filler" + i, "Dish");
+            filler.setDescription(String.format("bake%03d", i));
+            recipes.add(filler);
+        }
+        recipes.add(recipe("cake", "Cake"));
+        engine.putAll(recipes);
+
+        assertTrue(ids(engine.search("bake", 1000)).contains("cake"));
+    }
+
+    @Test
+    public void putAndRemove_updateResults() {
+        RecipeSearchEngine engine = new RecipeSearchEngine();
+        engine.putAll(Arrays.asList(recipe("1", "Pancakes"), recipe("2", "Pancake Stack")));
+        engine.putAll(Collections.singletonList(recipe("1", "Waffles")));
+        engine.remove("2");
+
+        assertTrue(engine.search("pancake", 10).isEmpty());
+        assertEquals(Collections.singletonList("1"), ids(engine.search("waffles", 10)));
+        assertEquals(1, engine.size());
+    }
+
+    @Test
+    public void remove_freesOrdinalsForNewRecipes() {
+        RecipeSearchEngine engine = new RecipeSearchEngine();
+        for (int i = 0; i < 100; i++) {
+            engine.putAll(Collections.singletonList(recipe("r" + i, "Soup")));
+            if (i > 0) {
+                engine.remove("r" + (i - 1));
+            }
+        }
+
+        assertEquals(2, engine.ordinalCapacity());
+        assertEquals(Collections.singletonList("r99"), ids(engine.search("soup", 10)));
+    }
+
+    private static List<String> sorted(List<String> values) {
+        List<String> copy = new ArrayList<>(values);
+        Collections.sort(copy);
+        return copy;
+    }
+}
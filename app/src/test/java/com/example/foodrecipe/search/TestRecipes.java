@@ -0,0 +1,48 @@
+package com.example.foodrecipe.search;
+
+import com.example.foodrecipe.model.Recipe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds recipes for the index tests
+ */
+final class TestRecipes {
+
+    private TestRecipes() {
+    }
+
+    static Recipe recipe(String id, String name) {
+        Recipe recipe = new Recipe();
+        recipe.setId(id);
+        recipe.setName(name);
+        return recipe;
+    }
+
+    static Recipe withIngredients(String id, String... ingredients) {
+        Recipe recipe = recipe(id, id);
+        for (String ingredient : ingredients) {
+            recipe.addIngredient(new Recipe.Ingredient(ingredient, "1", "", "Other"));
+        }
+        return recipe;
+    }
+
+    static Recipe filterable(String id, String category, int cookingTime, int servings, String... tags) {
+        Recipe recipe = recipe(id, id);
+        recipe.setCategory(category);
+        recipe.setCookingTime(cookingTime);
+        recipe.setServingSize(servings);
+        recipe.setTags(new ArrayList<>(Arrays.asList(tags)));
+        return recipe;
+    }
+
+    static List<String> ids(List<Recipe> recipes) {
+        List<String> ids = new ArrayList<>(recipes.size());
+        for (Recipe recipe : recipes) {
+            ids.add(recipe.getId());
+        }
+        return ids;
+    }
+}